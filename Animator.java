@@ -2,15 +2,33 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.Animation.PlayMode;
 import com.badlogic.gdx.utils.Array; 
+import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.TextureLoader.TextureParameter;
 
+/**
+ * Per-instance playback state (elapsed time, pause) for an animation.
+ * Animation definitions are shared: every Animator created from the same files and settings
+ * uses the same Animation object, and only its own time state is per instance.
+ * The current frame is found once per update and cached, so drawing never recomputes it.
+ */
 public class Animator
 {
+    // shared definitions, keyed by source files and settings
+    private static ObjectMap<String, Animation<TextureRegion>> definitions = new ObjectMap<String, Animation<TextureRegion>>();
+
     public Animation<TextureRegion> animation;
     public float elapsedTime;
     public boolean animationPaused;
+
+    // frame for cachedTime in cachedAnimation; recomputed only when either changes
+    private TextureRegion currentFrame;
+    private Animation<TextureRegion> cachedAnimation;
+    private float cachedTime;
+
     // default constructor
     public Animator()
     {
@@ -20,6 +38,17 @@ public class Animator
         animationPaused = false;
     }
 
+    /**
+     * Creates a new animator that plays the same animation definition as another one,
+     * with its own elapsed time starting at zero.
+     * @param shared animator whose animation will be shared
+     */
+    public Animator(Animator shared)
+    {
+        this();
+        animation = shared.animation;
+    }
+
     // parameterized constructors (3!)
     
     /**
@@ -31,14 +60,22 @@ public class Animator
      */
     public Animator(String[] fileNames, float frameDuration, boolean loop)
     { 
+        this();
+
+        String key = String.join(",", fileNames) + "|" + frameDuration + "|" + loop;
+        animation = definitions.get(key);
+        if (animation != null)
+            return;
+
         int fileCount = fileNames.length;
         Array<TextureRegion> textureArray = new Array<TextureRegion>();
 
         for (int n = 0; n < fileCount; n++)
         {   
             String fileName = fileNames[n];
-            Texture texture = new Texture( Gdx.files.internal(fileName) );
-            texture.setFilter( TextureFilter.Linear, TextureFilter.Linear );
+            Texture texture = loadTexture( fileName, false );
+            TextureFilter filter = BaseScreen.governor.getTextureFilter();
+            texture.setFilter( filter, filter );
             textureArray.add( new TextureRegion( texture ) );
         }
 
@@ -48,6 +85,8 @@ public class Animator
             animation.setPlayMode(Animation.PlayMode.LOOP);
         else
             animation.setPlayMode(Animation.PlayMode.NORMAL);
+
+        definitions.put(key, animation);
     }
 
     /**
@@ -61,8 +100,16 @@ public class Animator
      */
     public Animator(String fileName, int rows, int cols, float frameDuration, boolean loop)
     { 
-        Texture texture = new Texture(Gdx.files.internal(fileName), true);
-        texture.setFilter(TextureFilter.Linear, TextureFilter.Linear);
+        this();
+
+        String key = fileName + "|" + rows + "x" + cols + "|" + frameDuration + "|" + loop;
+        animation = definitions.get(key);
+        if (animation != null)
+            return;
+
+        Texture texture = loadTexture(fileName, true);
+        TextureFilter filter = BaseScreen.governor.getTextureFilter();
+        texture.setFilter(filter, filter);
         int frameWidth = texture.getWidth() / cols;
         int frameHeight = texture.getHeight() / rows;
 
@@ -80,6 +127,8 @@ public class Animator
             animation.setPlayMode(Animation.PlayMode.LOOP);
         else
             animation.setPlayMode(Animation.PlayMode.NORMAL);
+
+        definitions.put(key, animation);
     }
 
     /**
@@ -92,6 +141,45 @@ public class Animator
         this(new String[] {fileName}, 1, true);
     }
 
+    /**
+     *  Forgets all shared animation definitions;
+     *  called when the textures they refer to are disposed.
+     */
+    public static void clearDefinitions()
+    {
+        definitions.clear();
+    }
+
+    /**
+     *  Gets a texture from the game's shared asset manager, loading it first if necessary.
+     *  Textures are shared by every animation that uses the same file
+     *  and are disposed when the game exits (not when a screen or actor is removed).
+     *  If no game is running (e.g. in benchmarks), a new unmanaged texture is created instead.
+     *  @param fileName name of image file
+     *  @param mipMaps should mipmaps be generated (only applies the first time a file is loaded)
+     *  @return texture for the file
+     */
+    public static Texture loadTexture(String fileName, boolean mipMaps)
+    {
+        AssetManager assets = BaseGame.assets;
+        if (assets == null)
+        {
+            Texture texture = new Texture( Gdx.files.internal(fileName), mipMaps );
+            BaseGame.resources.trackTexture(texture);
+            return texture;
+        }
+
+        if ( !assets.isLoaded(fileName, Texture.class) )
+        {
+            TextureParameter parameter = new TextureParameter();
+            parameter.genMipMaps = mipMaps;
+            assets.load(fileName, Texture.class, parameter);
+            // also completes the file if it was already queued by BaseGame.preloadTextures
+            assets.finishLoadingAsset(fileName);
+        }
+        return assets.get(fileName, Texture.class);
+    }
+
     /**
      *  Set the pause state of the animation.
      *  @param pause true to pause animation, false to resume animation
@@ -104,28 +192,91 @@ public class Animator
     /**
      *  Checks if animation is complete: if play mode is normal (not looping)
      *      and elapsed time is greater than time corresponding to last frame.
-     *  @return 
+     *  @return true if a non-looping animation has shown its last frame for its full duration
      */
     public boolean isAnimationFinished()
     {
+        if ( isLooping() )
+            return false;
         return animation.isAnimationFinished(elapsedTime);
     }
     
     /**
-     *  Update the state of the animation (elapsed time)
+     *  Update the state of the animation (elapsed time) and find the frame to display.
+     *  Looping animations keep elapsed time within one cycle, so it never loses precision.
      */
     public void update(float deltaTime)
     {
         if (animation != null && !animationPaused)
+        {
             elapsedTime += deltaTime;
+
+            float period = getLoopPeriod();
+            if (period > 0 && elapsedTime >= period)
+                elapsedTime %= period;
+
+            updateFrame();
+        }
     }
     
+    /**
+     *  Returns the frame to display; computed by update, so this is normally just a field read.
+     *  @return current frame of the animation
+     */
     public TextureRegion getKeyFrame()
     {
-        return animation.getKeyFrame(elapsedTime);
+        // animation or time may have been changed directly since the last update
+        if (animation != cachedAnimation || elapsedTime != cachedTime)
+            updateFrame();
+        return currentFrame;
     }
-    
-    
-    
-    
-}
\ No newline at end of file
+
+    private boolean isLooping()
+    {
+        PlayMode mode = animation.getPlayMode();
+        return (mode == PlayMode.LOOP || mode == PlayMode.LOOP_REVERSED
+            || mode == PlayMode.LOOP_PINGPONG || mode == PlayMode.LOOP_RANDOM);
+    }
+
+    // time after which a looping animation shows the same frames again; 0 if it does not loop
+    private float getLoopPeriod()
+    {
+        if ( !isLooping() )
+            return 0;
+
+        // ping-pong plays frames 0..n-1 then n-2..1, so a cycle is 2n - 2 frames, not twice the duration
+        if (animation.getPlayMode() == PlayMode.LOOP_PINGPONG)
+        {
+            // (frame count from the duration: the frames array cannot be read with its generic type)
+            int frameCount = Math.round( animation.getAnimationDuration() / animation.getFrameDuration() );
+            return Math.max(0, 2 * frameCount - 2) * animation.getFrameDuration();
+        }
+        return animation.getAnimationDuration();
+    }
+
+    private void updateFrame()
+    {
+        // Animation stores frames in an Object[] internally, so read them without the generic array type
+        Object[] frames = ((Animation)animation).getKeyFrames();
+        PlayMode mode = animation.getPlayMode();
+        int index;
+
+        // common modes are computed directly; others use the Animation's own rules
+        if (frames.length == 1)
+            index = 0;
+        else if (mode == PlayMode.NORMAL || mode == PlayMode.LOOP)
+        {
+            index = (int)(elapsedTime / animation.getFrameDuration());
+            if (mode == PlayMode.LOOP)
+                index %= frames.length;
+            else if (index >= frames.length)
+                index = frames.length - 1;
+        }
+        else
+            index = animation.getKeyFrameIndex(elapsedTime);
+
+        currentFrame = (TextureRegion)frames[index];
+        cachedAnimation = animation;
+        cachedTime = elapsedTime;
+    }
+}
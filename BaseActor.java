@@ -1,5 +1,4 @@
 import com.badlogic.gdx.scenes.scene2d.Actor;
-import com.badlogic.gdx.scenes.scene2d.Group;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 
 import com.badlogic.gdx.Gdx;
@@ -28,7 +27,7 @@ import com.badlogic.gdx.utils.viewport.Viewport;
  * @see #Actor
  * @author Lee Stemkoski
  */
-public class BaseActor extends Group
+public class BaseActor extends Actor
 {
     public Animator animator;
 
@@ -36,6 +35,9 @@ public class BaseActor extends Group
 
     private Polygon boundary;
 
+    // drawing order within a SpriteStage: higher layers are drawn on top
+    public int layer;
+
     public BaseActor(float x, float y, Stage s)
     {
         // call constructor from Actor class
@@ -45,9 +47,12 @@ public class BaseActor extends Group
         setPosition(x,y);
         s.addActor(this);
 
-        animator = new Animator();
+        // set by subclasses with setAnimator
+        animator = null;
 
         boundary = null;
+
+        BaseGame.resources.trackActor(this, s);
     }
 
     // ----------------------------------------------
@@ -238,9 +243,10 @@ public class BaseActor extends Group
      */
     public void draw(Batch batch, float parentAlpha) 
     {
-        // apply color tint effect
-        Color c = getColor(); 
-        batch.setColor(c.r, c.g, c.b, c.a);
+        // apply color tint effect; most actors share one color, so skip redundant changes
+        float packedColor = getColor().toFloatBits();
+        if ( batch.getPackedColor() != packedColor )
+            batch.setColor(packedColor);
 
         if ( animator != null && isVisible() )
             batch.draw( 
@@ -250,8 +256,6 @@ public class BaseActor extends Group
                 getWidth(), getHeight(), 
                 getScaleX(), getScaleY(), 
                 getRotation() );
-
-        super.draw( batch, parentAlpha );
     }
 
     public void boundToWorld(float worldWidth, float worldHeight)
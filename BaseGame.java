@@ -1,17 +1,30 @@
 import com.badlogic.gdx.Game;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Graphics.DisplayMode;
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.scenes.scene2d.ui.Label.LabelStyle;
 import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
 import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator.FreeTypeFontParameter;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.reflect.ClassReflection;
+import com.badlogic.gdx.utils.reflect.ReflectionException;
 
 /**
- *  Created when program is launched; 
+ *  Created when program is launched;
  *  manages the screens that appear during the game.
+ *  Screens that can be reused (see {@link BaseScreen#isCacheable}) are created once and kept;
+ *  all other screens are disposed after they are replaced.
  */
 public abstract class BaseGame extends Game
 {
@@ -21,24 +34,76 @@ public abstract class BaseGame extends Game
     private static BaseGame game;
 
     public static LabelStyle labelStyle; // BitmapFont + Color
-    
+
+    // size of the area of the game world visible at once (world units); also the initial window size
+    public static final int VIEW_WIDTH = 800;
+    public static final int VIEW_HEIGHT = 600;
+
+    /**
+     *  Fraction (0 to 1] of the window's resolution used to draw the game world;
+     *  lower values trade sharpness for speed on large or high-DPI displays.
+     *  Further reduced automatically by {@link BaseScreen#governor} under load.
+     */
+    public static float renderScale = 1;
+
+    /**
+     *  Shared textures (see {@link Animator#loadTexture});
+     *  also loads textures in the background ahead of the screens that need them.
+     */
+    public static AssetManager assets;
+
+    /**
+     *  Counts textures, fonts, sounds and actors; F3 shows its figures on screen.
+     *  Set its budgets to have over-budget conditions handled by {@link #enforceBudget}.
+     */
+    public static ResourceTracker resources = new ResourceTracker();
+
+    /**
+     *  Number of consecutive over-budget samples after which the application exits
+     *  (so that a supervisor, such as a kiosk's service manager, can restart it); 0 to never exit.
+     *  Exiting is the only way a texture budget is enforced (see {@link #enforceBudget}).
+     */
+    public static int overBudgetExitSamples = 0;
+
+    // draws the resource figures over the game when enabled with F3
+    private SpriteBatch overlayBatch;
+    private boolean showResources;
+
+    // over budget at the last resource sample; changes of state are logged, not every sample
+    private boolean overBudget;
+
+    // reusable screens, created on first use
+    private ObjectMap<Class<? extends BaseScreen>, BaseScreen> screenCache;
+
+    // replaced screens, disposed at the start of the next frame (never during their own render)
+    private Array<BaseScreen> disposeQueue;
+
     /**
      *  Called when game is initialized; stores global reference to game object.
      */
-    public BaseGame() 
-    {        
+    public BaseGame()
+    {
         game = this;
+        screenCache = new ObjectMap<Class<? extends BaseScreen>, BaseScreen>();
+        disposeQueue = new Array<BaseScreen>();
     }
-    
+
     /**
-     *  Called when game is initialized, 
+     *  Called when game is initialized,
      *  after Gdx.input and other objects have been initialized.
      */
-    public void create() 
-    {        
+    public void create()
+    {
+        assets = new AssetManager();
+
+        // frame time budget follows the display (a 50 Hz display cannot show 60 frames per second)
+        DisplayMode display = Gdx.graphics.getDisplayMode();
+        if (display != null)
+            BaseScreen.governor.setRefreshRate(display.refreshRate);
+
         // parameters for generating a custom bitmap font
-        FreeTypeFontGenerator fontGenerator = 
-            new FreeTypeFontGenerator(Gdx.files.internal("assets/OpenSans.ttf"));
+        FreeTypeFontGenerator fontGenerator =
+            new FreeTypeFontGenerator(Gdx.files.internal("assets/fonts/OpenSans.ttf"));
         FreeTypeFontParameter fontParameters = new FreeTypeFontParameter();
         fontParameters.size = 48;
         fontParameters.color = Color.WHITE;
@@ -49,17 +114,214 @@ public abstract class BaseGame extends Game
         fontParameters.magFilter = TextureFilter.Linear;
 
         BitmapFont customFont = fontGenerator.generateFont(fontParameters);
+        // generator holds native FreeType memory; the font no longer needs it
+        fontGenerator.dispose();
+        resources.trackFont(customFont);
 
         labelStyle = new LabelStyle();
         labelStyle.font = customFont;
     }
-    
+
+    /**
+     *  Disposes replaced screens, continues any background loading, then renders the active screen.
+     */
+    public void render()
+    {
+        for (BaseScreen s : disposeQueue)
+            s.dispose();
+        disposeQueue.clear();
+
+        assets.update();
+
+        super.render();
+
+        Screen current = getScreen();
+        if ( current instanceof BaseScreen && ((BaseScreen)current).mainStage instanceof SpriteStage )
+            resources.recordDraw( (SpriteStage)((BaseScreen)current).mainStage );
+
+        if ( resources.update( Gdx.graphics.getDeltaTime() ) )
+        {
+            if ( resources.isOverBudget() )
+                enforceBudget();
+            else if (overBudget)
+                Gdx.app.log( "BaseGame", "back within memory budget" );
+            overBudget = resources.isOverBudget();
+        }
+
+        if ( Gdx.input.isKeyJustPressed(Keys.F3) )
+            showResources = !showResources;
+        if (showResources)
+            drawResources();
+    }
+
+    /**
+     *  Called for every resource sample that exceeds a budget: releases cached screens that are not showing
+     *  (they are recreated when next needed), and exits if the budget stays exceeded.
+     *  Only the start of an overrun is logged.
+     *  <br>
+     *  Releasing screens frees their stages, batches, framebuffers and actors, which lowers heap use;
+     *  textures loaded through {@link #assets} are shared by all screens and kept until exit,
+     *  so a texture budget is only enforced by exiting (see {@link #overBudgetExitSamples}).
+     */
+    protected void enforceBudget()
+    {
+        if (!overBudget)
+            Gdx.app.error( "BaseGame", "over memory budget: " + resources.getSummary().toString().replace('\n', ';') );
+
+        Screen current = getScreen();
+        ObjectMap.Entries<Class<? extends BaseScreen>, BaseScreen> entries = screenCache.entries();
+        while ( entries.hasNext() )
+        {
+            BaseScreen cached = entries.next().value;
+            if (cached != current)
+            {
+                disposeQueue.add(cached);
+                entries.remove();
+            }
+        }
+
+        if ( overBudgetExitSamples > 0 && resources.getOverBudgetSamples() == overBudgetExitSamples )
+        {
+            Gdx.app.error( "BaseGame", "memory budget exceeded for " + overBudgetExitSamples + " samples; exiting" );
+            Gdx.app.exit();
+        }
+    }
+
+    private void drawResources()
+    {
+        if (overlayBatch == null)
+            overlayBatch = new SpriteBatch();
+
+        int width = Gdx.graphics.getWidth();
+        int height = Gdx.graphics.getHeight();
+        Gdx.gl.glViewport(0, 0, width, height);
+        overlayBatch.getProjectionMatrix().setToOrtho2D(0, 0, width, height);
+
+        // the label font is shared; restore its scale for the labels
+        BitmapFont font = labelStyle.font;
+        float scaleX = font.getData().scaleX;
+        float scaleY = font.getData().scaleY;
+        font.getData().setScale(0.35f);
+        overlayBatch.begin();
+        font.draw( overlayBatch, resources.getSummary(), 10, height - 10 );
+        overlayBatch.end();
+        font.getData().setScale(scaleX, scaleY);
+    }
+
+    /**
+     *  Called when the application closes; releases every screen, texture and font.
+     */
+    public void dispose()
+    {
+        super.dispose();
+
+        Screen current = getScreen();
+        if ( current != null && !screenCache.containsValue(current, true) )
+            current.dispose();
+        for (BaseScreen s : screenCache.values())
+            s.dispose();
+        screenCache.clear();
+        for (BaseScreen s : disposeQueue)
+            s.dispose();
+        disposeQueue.clear();
+
+        assets.dispose();
+        Animator.clearDefinitions();
+        labelStyle.font.dispose();
+        if (overlayBatch != null)
+            overlayBatch.dispose();
+    }
+
     /**
      *  Used to switch screens while game is running.
      *  Method is static to simplify usage.
+     *  The previous screen is disposed unless it is cacheable.
      */
     public static void setActiveScreen(BaseScreen s)
     {
+        Screen previous = game.getScreen();
         game.setScreen(s);
+
+        if ( previous instanceof BaseScreen && previous != s && !((BaseScreen)previous).isCacheable() )
+            game.disposeQueue.add( (BaseScreen)previous );
+    }
+
+    /**
+     *  Switches to a screen of the given type, reusing the cached instance if there is one.
+     *  @param type class of screen to show
+     */
+    public static void setActiveScreen(Class<? extends BaseScreen> type)
+    {
+        setActiveScreen( getScreen(type) );
+    }
+
+    /**
+     *  Returns the cached screen of the given type, or creates a new one
+     *  (which is cached if the screen is cacheable).
+     *  @param type class of screen
+     *  @return screen instance
+     */
+    public static BaseScreen getScreen(Class<? extends BaseScreen> type)
+    {
+        BaseScreen s = game.screenCache.get(type);
+        if (s != null)
+            return s;
+
+        try
+        {
+            s = ClassReflection.newInstance(type);
+        }
+        catch (ReflectionException error)
+        {
+            throw new GdxRuntimeException("Unable to create screen: " + type.getName(), error);
+        }
+
+        if ( s.isCacheable() )
+            game.screenCache.put(type, s);
+        return s;
+    }
+
+    /**
+     *  Gets a sound effect from the shared asset manager, loading it first if necessary.
+     *  Sounds are disposed when the game exits.
+     *  @param fileName name of audio file
+     *  @return sound for the file
+     */
+    public static Sound loadSound(String fileName)
+    {
+        if ( !assets.isLoaded(fileName, Sound.class) )
+        {
+            assets.load(fileName, Sound.class);
+            assets.finishLoadingAsset(fileName);
+        }
+        return assets.get(fileName, Sound.class);
+    }
+
+    /**
+     *  Starts loading textures on a background thread so the next screen can be created without waiting.
+     *  Files already loaded are skipped; loading finishes over the following frames.
+     *  @param fileNames names of image files
+     */
+    public static void preloadTextures(String... fileNames)
+    {
+        for (String fileName : fileNames)
+        {
+            if ( !assets.isLoaded(fileName, Texture.class) )
+                assets.load(fileName, Texture.class);
+        }
+    }
+
+    /**
+     *  Starts decoding sound effects on a background thread, like {@link #preloadTextures};
+     *  {@link #loadSound} then returns them without waiting.
+     *  @param fileNames names of audio files
+     */
+    public static void preloadSounds(String... fileNames)
+    {
+        for (String fileName : fileNames)
+        {
+            if ( !assets.isLoaded(fileName, Sound.class) )
+                assets.load(fileName, Sound.class);
+        }
     }
-}
\ No newline at end of file
+}
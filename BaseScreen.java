@@ -1,63 +1,226 @@
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.InputMultiplexer;
 import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.scenes.scene2d.InputEvent;
+import com.badlogic.gdx.scenes.scene2d.InputListener;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.badlogic.gdx.utils.viewport.FitViewport;
+import com.badlogic.gdx.utils.viewport.ScreenViewport;
 
 public abstract class BaseScreen implements Screen
 {
+    /**
+     *  Shared by all screens: adjusts effect density, AI rate, texture filtering and
+     *  render scale based on recent frame times.
+     */
+    public static QualityGovernor governor = new QualityGovernor();
+
+    /**
+     *  Length of one simulation tick (seconds); the game world is updated in steps of this size,
+     *  as many times per frame as needed to keep up with real time.
+     */
+    public static final float TIME_STEP = 1 / 60f;
+    private static final long TIME_STEP_NANOS = 1000000000L / 60;
+    // after a longer stall (such as loading) the simulation skips ahead instead of catching up
+    private static final int MAX_STEPS_PER_FRAME = 5;
+
     protected Stage mainStage;
     protected Stage uiStage;
     protected Table uiTable;
 
+    // key and touch commands, applied at the start of each simulation tick
+    protected InputBuffer input;
+    // game events posted during a tick, delivered once at its end
+    protected EventQueue events;
+
+    /**
+     *  Work posted by background threads (loaded data, actors to add), run on the render thread
+     *  at the start of each frame, before the simulation ticks; limited per frame (see CommandQueue).
+     */
+    public final CommandQueue commands;
+    // real time (TimeUtils.nanoTime) that the simulation has reached; 0 until first rendered
+    private long simulationTime;
+
+    // draws mainStage at reduced resolution when requested
+    private FrameBufferRenderer mainRenderer;
+
     public BaseScreen()
     {
-        mainStage = new Stage();
-        uiStage = new Stage();
+        // game objects are drawn from a layer-sorted render list;
+        //  the world view keeps its size and aspect ratio (letterboxed) when the window is resized
+        mainStage = new SpriteStage( new FitViewport(BaseGame.VIEW_WIDTH, BaseGame.VIEW_HEIGHT) );
+        // user interface uses window pixels, so it stays sharp and anchored to the window edges
+        uiStage = new Stage( new ScreenViewport() );
+        mainRenderer = new FrameBufferRenderer();
         
         uiTable = new Table();
         uiTable.setFillParent(true);
         uiStage.addActor(uiTable);
 
+        input = new InputBuffer();
+        events = new EventQueue();
+        commands = new CommandQueue(1024);
+
+        // actors created from now on (in initialize) belong to this screen
+        BaseGame.resources.trackScreen(this, mainStage, uiStage);
+
         initialize();
     }
 
     public abstract void initialize();
 
+    /**
+     *  Updates game logic for one simulation tick.
+     *  @param deltaTime length of the tick (always TIME_STEP)
+     */
     public abstract void update(float deltaTime);
 
     // Gameloop:
-    // (1) process input (discrete handled by listener; continuous in update)
-    // (2) update game logic
+    // (0) run commands posted by background threads
+    // (1) process input (events queued by InputBuffer as they arrive; applied at the start of each tick)
+    // (2) update game logic in fixed steps (zero or more per frame), then dispatch the tick's events
     // (3) render the graphics
     public void render(float dt) 
     {
-        // act methods
+        long workStart = TimeUtils.nanoTime();
+
+        // the only point where other threads' results reach the stages
+        commands.drain();
+
+        // user interface animations follow the frame rate
         uiStage.act(dt);
-        mainStage.act(dt);
+
+        if (simulationTime == 0 || workStart - simulationTime > MAX_STEPS_PER_FRAME * TIME_STEP_NANOS)
+            simulationTime = workStart - TIME_STEP_NANOS;
+
+        while (workStart - simulationTime >= TIME_STEP_NANOS)
+        {
+            simulationTime += TIME_STEP_NANOS;
+
+            // the simulation runs up to one step behind real time, so a tick also takes the events
+            //  of the step after it; the last tick of a frame thereby sees every event received so far
+            tick( simulationTime + TIME_STEP_NANOS );
+        }
+
+        draw();
+
+        governor.recordFrame( dt, (TimeUtils.nanoTime() - workStart) / 1000000000f );
+    }
+
+    /**
+     *  Advances the game world by one TIME_STEP. Called by render;
+     *  may also be called directly to run the game logic without real time (such as in PerfRunner).
+     *  @param inputTime input events that arrived up to this time (TimeUtils.nanoTime) are applied
+     */
+    public void tick(long inputTime)
+    {
+        input.beginTick(inputTime);
+
+        // act methods
+        mainStage.act(TIME_STEP);
 
         // defined by user
-        update(dt);
+        update(TIME_STEP);
+
+        // react to what happened during this tick
+        events.dispatch();
+    }
 
+    /**
+     *  Clears the screen and draws the game world, then the user interface.
+     */
+    public void draw()
+    {
         // clear the screen
         Gdx.gl.glClearColor(0,0,0,1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
-        // draw the graphics
-        mainStage.draw();
+        // draw the graphics; only the game world is affected by render scale
+        mainRenderer.draw( mainStage, BaseGame.renderScale * governor.getRenderScale() );
+        uiStage.getViewport().apply();
         uiStage.draw();
     }
 
+    /**
+     *  Runs an action when a key is pressed while this screen is showing;
+     *  for menu choices and other input outside the game simulation (see InputBuffer for game commands).
+     *  @param keycode key (see Input.Keys)
+     *  @param action work to run, such as switching screens
+     */
+    public void onKeyPressed(final int keycode, final Runnable action)
+    {
+        // with no keyboard focus, the ui stage delivers key events to its root
+        uiStage.getRoot().addListener( new InputListener()
+            {
+                public boolean keyDown(InputEvent event, int key)
+                {
+                    if (key != keycode)
+                        return false;
+                    action.run();
+                    return true;
+                }
+            } );
+    }
+
+    /**
+     *  Determines if this screen is kept and reused by BaseGame after it is replaced,
+     *  instead of being disposed. Override to return true for screens with no per-visit state.
+     *  @return false (default) for screens that are recreated on every visit
+     */
+    public boolean isCacheable()
+    {
+        return false;
+    }
+
     // methods required by Screen interface
-    public void resize(int width, int height) {  }
+
+    /**
+     *  Updates both viewports for the new window size;
+     *  the main stage camera keeps its position (it is usually set by BaseActor.alignCamera).
+     */
+    public void resize(int width, int height)
+    {
+        mainStage.getViewport().update(width, height, false);
+        uiStage.getViewport().update(width, height, true);
+    }
 
     public void pause()   {  }
 
     public void resume()  {  }
 
-    public void dispose() {  }
+    /**
+     *  Releases the stages, their sprite batches and the low-resolution framebuffer.
+     *  Textures are shared between screens and are released by BaseGame.
+     */
+    public void dispose()
+    {
+        // commands still waiting would act on disposed stages
+        commands.clear();
+        mainStage.dispose();
+        uiStage.dispose();
+        mainRenderer.dispose();
+        BaseGame.resources.screenDisposed(this);
+    }
 
-    public void show()    {  }
+    /**
+     *  Starts sending input to this screen: the user interface first, then game commands.
+     */
+    public void show()
+    {
+        Gdx.input.setInputProcessor( new InputMultiplexer(uiStage, input) );
+    }
 
-    public void hide()    {  }
+    /**
+     *  Stops receiving input and releases any commands still held.
+     */
+    public void hide()
+    {
+        Gdx.input.setInputProcessor(null);
+        input.clear();
+        // a screen shown again starts its simulation from the current time
+        simulationTime = 0;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Passes work from background threads to the render thread without locks.
+ * Any number of threads may post commands; only the render thread runs them,
+ * a limited number per frame (see {@link #drain()}, called by BaseScreen.render).
+ * Commands may therefore change stages and actors, and create textures,
+ * which must never be done from another thread.
+ * <br>
+ * The queue is a bounded ring buffer: each slot has a sequence number that tells producers
+ * when it is free and the consumer when it is filled, and producers claim slots with compare-and-set.
+ * A full queue never blocks the render thread; {@link #post} fails instead, and {@link #put} waits on the posting thread.
+ */
+public class CommandQueue
+{
+    private final AtomicReferenceArray<Runnable> slots;
+    // slot i is free for position p when sequence == p, filled for position p when sequence == p + 1
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    // next position to claim (shared by producers)
+    private final AtomicLong tail;
+    // next position to run (render thread only)
+    private long head;
+
+    // most commands run per drain
+    public int commandsPerDrain;
+    // time after which a drain stops, even if commands remain (nanoseconds)
+    public long nanosPerDrain;
+
+    /**
+     *  @param capacity most commands waiting at once (rounded up to a power of two)
+     */
+    public CommandQueue(int capacity)
+    {
+        int size = 1;
+        while (size < capacity)
+            size *= 2;
+
+        slots = new AtomicReferenceArray<Runnable>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+            sequences.set(i, i);
+        mask = size - 1;
+        tail = new AtomicLong(0);
+        head = 0;
+
+        commandsPerDrain = 64;
+        nanosPerDrain = 2000000;
+    }
+
+    /**
+     *  Queues a command to be run on the render thread. May be called from any thread.
+     *  @param command work to run
+     *  @return false if the queue is full (the command is not queued)
+     */
+    public boolean post(Runnable command)
+    {
+        long position = tail.get();
+        while (true)
+        {
+            int index = (int)(position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0)
+            {
+                // slot is free for this position; claim it unless another producer got there first
+                if ( tail.compareAndSet(position, position + 1) )
+                {
+                    slots.set(index, command);
+                    // publishes the command to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            }
+            else if (difference < 0)
+            {
+                // slot still holds a command from one lap ago
+                return false;
+            }
+            else
+            {
+                // another producer claimed this position
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     *  Queues a command, waiting for space if the queue is full.
+     *  For background threads only: calling this on the render thread when the queue is full never returns.
+     *  @param command work to run
+     */
+    public void put(Runnable command)
+    {
+        while ( !post(command) )
+            Thread.yield();
+    }
+
+    /**
+     *  Runs waiting commands in the order they were posted, within this queue's per-drain limits.
+     *  Render thread only.
+     *  @return number of commands run
+     */
+    public int drain()
+    {
+        return drain(commandsPerDrain, nanosPerDrain);
+    }
+
+    /**
+     *  Runs waiting commands in the order they were posted. Render thread only.
+     *  @param maxCommands most commands to run
+     *  @param maxNanos time after which no more commands are started (nanoseconds)
+     *  @return number of commands run
+     */
+    public int drain(int maxCommands, long maxNanos)
+    {
+        long start = TimeUtils.nanoTime();
+        int count = 0;
+        while (count < maxCommands)
+        {
+            int index = (int)(head & mask);
+            // empty, or the next command is claimed but not yet written
+            if (sequences.get(index) != head + 1)
+                break;
+
+            Runnable command = slots.get(index);
+            slots.set(index, null);
+            // frees the slot for the position one lap ahead
+            sequences.set(index, head + mask + 1);
+            head++;
+
+            command.run();
+            count++;
+
+            if (TimeUtils.nanoTime() - start >= maxNanos)
+                break;
+        }
+        return count;
+    }
+
+    /**
+     *  Discards waiting commands without running them. Render thread only.
+     */
+    public void clear()
+    {
+        while (true)
+        {
+            int index = (int)(head & mask);
+            if (sequences.get(index) != head + 1)
+                break;
+            slots.set(index, null);
+            sequences.set(index, head + mask + 1);
+            head++;
+        }
+    }
+
+    /**
+     *  Render thread only.
+     *  @return number of commands waiting, including any being posted at this moment
+     */
+    public int size()
+    {
+        return (int)Math.max(0, tail.get() - head);
+    }
+}
@@ -0,0 +1,18 @@
+import com.badlogic.gdx.scenes.scene2d.Stage;
+
+/**
+ * The structure that enemy subs are trying to reach;
+ * its location is the target of the shared flow field.
+ */
+public class Core extends BaseActor
+{
+
+    public Core(float x, float y, Stage stage)
+    {
+        super(x,y,stage);
+
+        setAnimator( new Animator("assets/images/the-core.png") );
+        setBoundaryPolygon(8);
+    }
+
+}
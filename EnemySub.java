@@ -1,17 +1,27 @@
-   import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.actions.Actions;
+import com.badlogic.gdx.math.Vector2;
 
 
 public class EnemySub extends BaseActor 
 {
+    // shared by all enemies; set by the screen that spawns them
+    public FlowField flowField;
+
+    // reused every frame to avoid allocation
+    private Vector2 heading;
+
+    // time until the next steering decision (see QualityGovernor.getAiInterval)
+    private float decisionTimer;
+
 //mainly taken from the alien fromSPACE ROCKS
     public EnemySub(float x, float y, Stage stage)
     {
         super(x,y,stage);
 
-        setAnimator( new Animator("INSERT NAME HERE") );
+        setAnimator( new Animator("assets/images/subenemy.png") );
         
-       // setPhysics( new Physics(0, 50, 0) );
+        physics = new Physics(0, 100, 0);
         
         physics.setSpeed(100);
         
@@ -21,13 +31,29 @@ public class EnemySub extends BaseActor
         
         
         this.setBoundaryPolygon(8);
+
+        heading = new Vector2();
     }
     
     public void act(float deltaTime)
     {
         super.act(deltaTime);
         
+        // steer toward the core by sampling the shared flow field at our center;
+        //  under load, decisions are made less often and motion continues in between
+        decisionTimer -= deltaTime;
+        if (flowField != null && decisionTimer <= 0)
+        {
+            decisionTimer = BaseScreen.governor.getAiInterval();
 
+            flowField.getDirection( getX() + getOriginX(), getY() + getOriginY(), heading );
+            if ( !heading.isZero() )
+            {
+                float angle = heading.angle();
+                physics.setMotionAngle(angle);
+                setRotation(angle);
+            }
+        }
         
     }
 
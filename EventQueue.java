@@ -0,0 +1,91 @@
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Collects game events during a simulation tick and delivers them to listeners once,
+ * at the end of the tick (see BaseScreen.render).
+ * Event objects come from a pool and are reused, so posting an event allocates nothing
+ * once the pool has grown to the busiest tick's size.
+ */
+public class EventQueue
+{
+    private Array<GameEvent> queue;
+    private Pool<GameEvent> pool;
+    // listeners for each event type, indexed by Type.ordinal
+    private Array<Array<GameEvent.Listener>> listeners;
+
+    public EventQueue()
+    {
+        queue = new Array<GameEvent>(32);
+        pool = new Pool<GameEvent>(32)
+        {
+            protected GameEvent newObject()
+            {
+                return new GameEvent();
+            }
+        };
+
+        listeners = new Array<Array<GameEvent.Listener>>();
+        for (int i = 0; i < GameEvent.Type.values().length; i++)
+            listeners.add( new Array<GameEvent.Listener>() );
+    }
+
+    /**
+     *  Registers a listener for one type of event.
+     *  @param type events to receive
+     *  @param listener object to notify
+     */
+    public void addListener(GameEvent.Type type, GameEvent.Listener listener)
+    {
+        listeners.get( type.ordinal() ).add(listener);
+    }
+
+    /**
+     *  Unregisters a listener for one type of event.
+     */
+    public void removeListener(GameEvent.Type type, GameEvent.Listener listener)
+    {
+        listeners.get( type.ordinal() ).removeValue(listener, true);
+    }
+
+    /**
+     *  Queues an event for the next dispatch.
+     *  @param type kind of event
+     *  @return event to fill in (actor, amount, position); valid until it is dispatched
+     */
+    public GameEvent post(GameEvent.Type type)
+    {
+        GameEvent event = pool.obtain();
+        event.type = type;
+        queue.add(event);
+        return event;
+    }
+
+    /**
+     *  Delivers queued events in the order they were posted, then returns them to the pool.
+     *  Events posted by listeners are delivered during the same dispatch, after those already queued.
+     */
+    public void dispatch()
+    {
+        // queue may grow while listeners run, so its size is checked on every pass
+        for (int i = 0; i < queue.size; i++)
+        {
+            GameEvent event = queue.get(i);
+            Array<GameEvent.Listener> receivers = listeners.get( event.type.ordinal() );
+            for (int j = 0; j < receivers.size; j++)
+                receivers.get(j).handle(event);
+        }
+
+        pool.freeAll(queue);
+        queue.clear();
+    }
+
+    /**
+     *  Discards queued events without delivering them.
+     */
+    public void clear()
+    {
+        pool.freeAll(queue);
+        queue.clear();
+    }
+}
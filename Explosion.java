@@ -9,6 +9,7 @@ public class Explosion extends BaseActor
         super(x,y,stage);
 
         setAnimator( new Animator("assets/images/explosion.png", 6,6, 0.02f, false) );
+        layer = SpriteStage.EFFECT_LAYER;
     }
     
     public void act(float deltaTime)
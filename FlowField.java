@@ -0,0 +1,315 @@
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Grid of directions leading every open cell toward a single target (the core).
+ * The field is shared by all enemies: it is built once from the wall layout,
+ * and each enemy looks up its desired direction with {@link #getDirection}.
+ * Obstacles are inflated by {@link #clearance}, so that agents steering by their center keep their bodies off walls.
+ * <br>
+ * Removing an obstacle only updates the affected cells. Adding one can lengthen paths anywhere behind it,
+ * so the whole field is recomputed on the next {@link #update} (one pass over every cell):
+ * add walls in batches, such as the whole layout when a level starts, rather than a few every frame.
+ */
+public class FlowField
+{
+    // distance value for cells that cannot reach the target
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    // neighbor offsets: first four are orthogonal, last four are diagonal
+    private static final int[] NEIGHBOR_COL = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] NEIGHBOR_ROW = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    /**
+     *  Distance (pixels) by which obstacles are extended on every side, usually the agents' radius;
+     *  set before adding obstacles (removing one must use the same value).
+     */
+    public float clearance;
+
+    private float cellSize;
+    private int cols;
+    private int rows;
+
+    // number of obstacles covering each cell (cells may be covered by several walls)
+    private int[] blockCount;
+    // steps from each cell to the target cell
+    private int[] distance;
+    // unit direction toward the target for each cell
+    private float[] directionX;
+    private float[] directionY;
+
+    private int targetCell;
+
+    // true when a wall was added and distances may have increased
+    private boolean rebuildNeeded;
+    // cells that opened up since the last update
+    private IntArray openedCells;
+    // work queue shared by full and incremental updates
+    private IntArray queue;
+
+    /**
+     *  Creates an empty field covering the world; call {@link #setTarget} before use.
+     *  @param worldWidth width of the world (pixels)
+     *  @param worldHeight height of the world (pixels)
+     *  @param cellSize width and height of each grid cell (pixels)
+     */
+    public FlowField(float worldWidth, float worldHeight, float cellSize)
+    {
+        this.cellSize = cellSize;
+        cols = MathUtils.ceil(worldWidth / cellSize);
+        rows = MathUtils.ceil(worldHeight / cellSize);
+        clearance = 0;
+
+        int cellCount = cols * rows;
+        blockCount = new int[cellCount];
+        distance = new int[cellCount];
+        directionX = new float[cellCount];
+        directionY = new float[cellCount];
+
+        targetCell = 0;
+        rebuildNeeded = true;
+        openedCells = new IntArray();
+        queue = new IntArray(cellCount);
+    }
+
+    /**
+     *  Sets the location that all directions lead toward.
+     *  @param x x-coordinate of target (pixels)
+     *  @param y y-coordinate of target (pixels)
+     */
+    public void setTarget(float x, float y)
+    {
+        targetCell = getCell(x, y);
+        rebuildNeeded = true;
+    }
+
+    /**
+     *  Marks the cells covered by an actor's collision polygon (plus clearance) as blocked.
+     *  @param obstacle actor (typically a Wall) that enemies cannot pass through
+     */
+    public void addObstacle(BaseActor obstacle)
+    {
+        addObstacle( obstacle.getBoundary().getBoundingRectangle() );
+    }
+
+    /**
+     *  Marks the cells covered by an area (plus clearance) as blocked; used for walls that may not exist as actors
+     *  (such as those in level regions that are not loaded).
+     *  @param area area that enemies cannot pass through (pixels)
+     */
+    public void addObstacle(Rectangle area)
+    {
+        changeBlockCount(area, 1);
+        // distances behind a new obstacle can only grow, which a search from the changed cells cannot find;
+        //  recompute everything
+        rebuildNeeded = true;
+    }
+
+    /**
+     *  Clears the cells covered by an actor's collision polygon (plus clearance).
+     *  Must be called before the actor is moved or resized.
+     *  @param obstacle actor previously passed to {@link #addObstacle}
+     */
+    public void removeObstacle(BaseActor obstacle)
+    {
+        Rectangle area = obstacle.getBoundary().getBoundingRectangle();
+        changeBlockCount(area, -1);
+    }
+
+    // the right and top edges are exclusive: an edge on a cell boundary does not block the next cell
+    private void changeBlockCount(Rectangle area, int change)
+    {
+        float left = area.x - clearance;
+        float right = area.x + area.width + clearance;
+        float bottom = area.y - clearance;
+        float top = area.y + area.height + clearance;
+
+        int minCol = MathUtils.clamp( (int)Math.floor(left / cellSize), 0, cols - 1 );
+        int maxCol = MathUtils.clamp( (int)Math.ceil(right / cellSize) - 1, 0, cols - 1 );
+        int minRow = MathUtils.clamp( (int)Math.floor(bottom / cellSize), 0, rows - 1 );
+        int maxRow = MathUtils.clamp( (int)Math.ceil(top / cellSize) - 1, 0, rows - 1 );
+
+        for (int r = minRow; r <= maxRow; r++)
+        {
+            for (int c = minCol; c <= maxCol; c++)
+            {
+                int cell = r * cols + c;
+                blockCount[cell] += change;
+                if (blockCount[cell] == 0 && change < 0)
+                    openedCells.add(cell);
+            }
+        }
+    }
+
+    /**
+     *  Brings distances and directions up to date after obstacles have changed.
+     *  Does nothing when nothing has changed, so it is safe to call every frame.
+     */
+    public void update()
+    {
+        if (rebuildNeeded)
+        {
+            rebuild();
+        }
+        else if (openedCells.size > 0)
+        {
+            relaxOpenedCells();
+        }
+        openedCells.clear();
+    }
+
+    // breadth-first search outward from the target over every open cell
+    private void rebuild()
+    {
+        for (int i = 0; i < distance.length; i++)
+            distance[i] = UNREACHABLE;
+
+        queue.clear();
+        distance[targetCell] = 0;
+        queue.add(targetCell);
+        propagate();
+
+        for (int i = 0; i < distance.length; i++)
+            updateDirection(i);
+
+        rebuildNeeded = false;
+    }
+
+    // opened cells can only shorten paths, so start a search from them alone
+    private void relaxOpenedCells()
+    {
+        queue.clear();
+        for (int i = 0; i < openedCells.size; i++)
+        {
+            int cell = openedCells.get(i);
+            int best = UNREACHABLE;
+            for (int n = 0; n < 4; n++)
+            {
+                int neighbor = getNeighbor(cell, n);
+                if (neighbor >= 0 && blockCount[neighbor] == 0 && distance[neighbor] != UNREACHABLE)
+                    best = Math.min(best, distance[neighbor] + 1);
+            }
+            if (best < distance[cell])
+            {
+                distance[cell] = best;
+                queue.add(cell);
+            }
+        }
+
+        propagate();
+
+        // directions can only change for the cells that improved and their neighbors;
+        //  the queue still holds every improved cell in order
+        for (int i = 0; i < queue.size; i++)
+        {
+            int cell = queue.get(i);
+            updateDirection(cell);
+            for (int n = 0; n < 8; n++)
+            {
+                int neighbor = getNeighbor(cell, n);
+                if (neighbor >= 0)
+                    updateDirection(neighbor);
+            }
+        }
+    }
+
+    // processes the queue in order, appending any cell whose distance improves
+    private void propagate()
+    {
+        for (int head = 0; head < queue.size; head++)
+        {
+            int cell = queue.get(head);
+            int next = distance[cell] + 1;
+            for (int n = 0; n < 4; n++)
+            {
+                int neighbor = getNeighbor(cell, n);
+                if (neighbor >= 0 && blockCount[neighbor] == 0 && next < distance[neighbor])
+                {
+                    distance[neighbor] = next;
+                    queue.add(neighbor);
+                }
+            }
+        }
+    }
+
+    // point each cell at its closest-to-target neighbor (diagonals may not cut wall corners)
+    private void updateDirection(int cell)
+    {
+        directionX[cell] = 0;
+        directionY[cell] = 0;
+
+        if (blockCount[cell] > 0 || distance[cell] == UNREACHABLE || cell == targetCell)
+            return;
+
+        int best = distance[cell];
+        int bestN = -1;
+        for (int n = 0; n < 8; n++)
+        {
+            int neighbor = getNeighbor(cell, n);
+            if (neighbor < 0 || blockCount[neighbor] > 0 || distance[neighbor] >= best)
+                continue;
+
+            if (n >= 4)
+            {
+                int col = cell % cols;
+                int row = cell / cols;
+                if ( blockCount[row * cols + col + NEIGHBOR_COL[n]] > 0
+                || blockCount[(row + NEIGHBOR_ROW[n]) * cols + col] > 0 )
+                    continue;
+            }
+
+            best = distance[neighbor];
+            bestN = n;
+        }
+
+        if (bestN < 0)
+            return;
+
+        float length = (bestN < 4) ? 1 : 0.70710677f;
+        directionX[cell] = NEIGHBOR_COL[bestN] * length;
+        directionY[cell] = NEIGHBOR_ROW[bestN] * length;
+    }
+
+    // returns index of neighbor n of cell, or -1 if it lies outside the grid
+    private int getNeighbor(int cell, int n)
+    {
+        int col = cell % cols + NEIGHBOR_COL[n];
+        int row = cell / cols + NEIGHBOR_ROW[n];
+        if (col < 0 || col >= cols || row < 0 || row >= rows)
+            return -1;
+        return row * cols + col;
+    }
+
+    private int getCell(float x, float y)
+    {
+        int col = MathUtils.clamp( (int)(x / cellSize), 0, cols - 1 );
+        int row = MathUtils.clamp( (int)(y / cellSize), 0, rows - 1 );
+        return row * cols + col;
+    }
+
+    /**
+     *  Looks up the direction to travel from a point toward the target.
+     *  @param x x-coordinate of point (pixels)
+     *  @param y y-coordinate of point (pixels)
+     *  @param out vector that receives the unit direction; (0,0) at the target or when no path exists
+     *  @return the out vector, for chaining
+     */
+    public Vector2 getDirection(float x, float y, Vector2 out)
+    {
+        int cell = getCell(x, y);
+        return out.set( directionX[cell], directionY[cell] );
+    }
+
+    /**
+     *  Determines if a point can reach the target.
+     *  @param x x-coordinate of point (pixels)
+     *  @param y y-coordinate of point (pixels)
+     *  @return true if an open path exists from the point's cell to the target
+     */
+    public boolean isReachable(float x, float y)
+    {
+        return distance[getCell(x, y)] != UNREACHABLE;
+    }
+}
@@ -0,0 +1,88 @@
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.viewport.Viewport;
+
+/**
+ * Draws a stage at reduced resolution: the stage is rendered into an off-screen
+ * framebuffer sized to a fraction of its on-screen area, which is then stretched
+ * onto the screen with a single textured quad. Trades sharpness for fill rate.
+ * At scale 1 the stage is drawn directly and no framebuffer is used.
+ */
+public class FrameBufferRenderer implements Disposable
+{
+    private FrameBuffer frameBuffer;
+    private SpriteBatch blitBatch;
+
+    public FrameBufferRenderer()
+    {
+        frameBuffer = null;
+        blitBatch = null;
+    }
+
+    /**
+     *  Draws the stage within its viewport's screen area.
+     *  @param stage stage to draw (its viewport must be up to date; see Viewport.update)
+     *  @param scale fraction (0 to 1] of the on-screen resolution to render at
+     */
+    public void draw(Stage stage, float scale)
+    {
+        Viewport viewport = stage.getViewport();
+
+        if (scale >= 1)
+        {
+            viewport.apply();
+            stage.draw();
+            return;
+        }
+
+        int width = Math.max( 1, MathUtils.round(viewport.getScreenWidth() * scale) );
+        int height = Math.max( 1, MathUtils.round(viewport.getScreenHeight() * scale) );
+
+        // framebuffer keeps its size until the window or scale changes
+        if (frameBuffer == null || frameBuffer.getWidth() != width || frameBuffer.getHeight() != height)
+        {
+            if (frameBuffer != null)
+                frameBuffer.dispose();
+            frameBuffer = new FrameBuffer(Pixmap.Format.RGB888, width, height, false);
+            frameBuffer.getColorBufferTexture().setFilter(TextureFilter.Linear, TextureFilter.Linear);
+            BaseGame.resources.trackTexture( frameBuffer.getColorBufferTexture() );
+        }
+        if (blitBatch == null)
+        {
+            // the image is opaque, so blending would only cost fill rate
+            blitBatch = new SpriteBatch(1);
+            blitBatch.disableBlending();
+        }
+
+        // begin sets the GL viewport to the whole framebuffer; the stage camera fills it
+        frameBuffer.begin();
+        Gdx.gl.glClearColor(0,0,0,1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+        stage.draw();
+        frameBuffer.end();
+
+        // stretch the image over the viewport's screen area (framebuffer images are upside down)
+        viewport.apply();
+        Texture image = frameBuffer.getColorBufferTexture();
+        blitBatch.getProjectionMatrix().setToOrtho2D(0, 0, width, height);
+        blitBatch.begin();
+        blitBatch.draw(image, 0, 0, width, height, 0, 0, width, height, false, true);
+        blitBatch.end();
+    }
+
+    public void dispose()
+    {
+        if (frameBuffer != null)
+            frameBuffer.dispose();
+        if (blitBatch != null)
+            blitBatch.dispose();
+    }
+}
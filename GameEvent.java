@@ -0,0 +1,46 @@
+import com.badlogic.gdx.utils.Pool.Poolable;
+
+/**
+ * Something that happened during a simulation tick, such as an enemy being destroyed.
+ * Events are posted to an {@link EventQueue}, which reuses them after they are dispatched;
+ * listeners must not keep a reference to an event after handling it.
+ */
+public class GameEvent implements Poolable
+{
+    /**
+     * Kinds of events; listeners register for one type at a time.
+     */
+    public enum Type
+    {
+        ENEMY_KILLED, CORE_DAMAGED, ITEM_COLLECTED, PLAYER_FIRED, GAME_OVER
+    }
+
+    /**
+     * Receives dispatched events.
+     */
+    public interface Listener
+    {
+        void handle(GameEvent event);
+    }
+
+    public Type type;
+    // actor the event is about (may already be removed from its stage); null if none
+    public BaseActor actor;
+    // amount of change, such as damage dealt or points earned
+    public int amount;
+    // world position where the event happened
+    public float x;
+    public float y;
+
+    /**
+     *  Clears all fields; called when the event is returned to its pool.
+     */
+    public void reset()
+    {
+        type = null;
+        actor = null;
+        amount = 0;
+        x = 0;
+        y = 0;
+    }
+}
@@ -0,0 +1,208 @@
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Audio;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Graphics;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.backends.lwjgl.LwjglFiles;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+/**
+ * Stand-ins for the LibGDX application, graphics, audio and input modules,
+ * so that screens, stages, actors and game logic can run without a window, OpenGL context or sound device
+ * (used by benchmarks and automated tests). Files are read from disk as usual.
+ * Every OpenGL call does nothing; shaders, textures and framebuffers report success, so
+ * SpriteBatch and Texture work normally on the CPU side, but nothing is rendered or played.
+ */
+public class HeadlessBackend
+{
+    /**
+     * Records how many times each method of a stand-in object was called.
+     */
+    public static class CallCounter implements InvocationHandler
+    {
+        private ObjectIntMap<String> counts = new ObjectIntMap<String>();
+
+        // returned by getters such as Batch.getTransformMatrix and Batch.getColor
+        private Matrix4 matrix = new Matrix4();
+        private Color color = new Color(Color.WHITE);
+
+        public Object invoke(Object proxy, Method method, Object[] args)
+        {
+            counts.getAndIncrement(method.getName(), 0, 1);
+
+            Class<?> type = method.getReturnType();
+            if (type == Matrix4.class)
+                return matrix;
+            if (type == Color.class)
+                return color;
+            return defaultValue(type);
+        }
+
+        /**
+         *  @param methodName name of method (all overloads are counted together)
+         *  @return number of calls since the last reset
+         */
+        public int getCount(String methodName)
+        {
+            return counts.get(methodName, 0);
+        }
+
+        public void reset()
+        {
+            counts.clear();
+        }
+    }
+
+    /**
+     * OpenGL stand-in: counts calls like CallCounter, and reports every
+     * object creation, shader compile and framebuffer as successful.
+     */
+    static class GLCounter extends CallCounter
+    {
+        public Object invoke(Object proxy, Method method, Object[] args)
+        {
+            Object result = super.invoke(proxy, method, args);
+
+            String name = method.getName();
+            // LibGDX treats handle 0 as failure
+            if ( name.equals("glCreateShader") || name.equals("glCreateProgram") || name.equals("glGenTexture")
+            || name.equals("glGenBuffer") || name.equals("glGenFramebuffer") || name.equals("glGenRenderbuffer") )
+                return 1;
+            if ( name.equals("glCheckFramebufferStatus") )
+                return GL20.GL_FRAMEBUFFER_COMPLETE;
+            if ( name.equals("glGetShaderiv") || name.equals("glGetProgramiv") )
+            {
+                // status queries succeed; counts (such as active attributes) are zero
+                int query = (Integer)args[1];
+                boolean status = ( query == GL20.GL_COMPILE_STATUS || query == GL20.GL_LINK_STATUS );
+                ((IntBuffer)args[2]).put( 0, status ? 1 : 0 );
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Stand-in for any interface: methods do nothing and return zero,
+     * except that methods returning an interface (such as Audio.newSound) return another stand-in.
+     */
+    static class NullObject implements InvocationHandler
+    {
+        public Object invoke(Object proxy, Method method, Object[] args)
+        {
+            Class<?> type = method.getReturnType();
+            if ( type.isInterface() )
+                return newProxy(type, this);
+            return defaultValue(type);
+        }
+    }
+
+    /**
+     *  Loads LibGDX native code and replaces Gdx.app, Gdx.graphics, Gdx.gl, Gdx.audio, Gdx.input
+     *  and Gdx.files with stand-ins (files are the desktop implementation).
+     *  @param width value reported as the window width
+     *  @param height value reported as the window height
+     */
+    public static void install(final int width, final int height)
+    {
+        // math classes such as Matrix4 use native code
+        GdxNativesLoader.load();
+
+        Gdx.graphics = newProxy( Graphics.class, new InvocationHandler()
+            {
+                public Object invoke(Object proxy, Method method, Object[] args)
+                {
+                    String name = method.getName();
+                    if ( name.equals("getWidth") || name.equals("getBackBufferWidth") )
+                        return width;
+                    if ( name.equals("getHeight") || name.equals("getBackBufferHeight") )
+                        return height;
+                    if ( name.equals("getDeltaTime") || name.equals("getRawDeltaTime") )
+                        return 1 / 60f;
+                    if ( name.equals("getDensity") || name.equals("getPpiX") || name.equals("getPpiY") )
+                        return (float)1;
+                    return defaultValue( method.getReturnType() );
+                }
+            });
+
+        Gdx.app = newProxy( Application.class, new InvocationHandler()
+            {
+                public Object invoke(Object proxy, Method method, Object[] args)
+                {
+                    String name = method.getName();
+                    if ( (name.equals("log") || name.equals("error") || name.equals("debug")) && args.length >= 2 )
+                        System.out.println("[" + args[0] + "] " + args[1]);
+                    else if ( name.equals("getType") )
+                        return Application.ApplicationType.HeadlessDesktop;
+                    else if ( name.equals("postRunnable") )
+                        ((Runnable)args[0]).run();
+                    return defaultValue( method.getReturnType() );
+                }
+            });
+
+        GL20 gl = newProxy( GL20.class, new GLCounter() );
+        Gdx.gl = gl;
+        Gdx.gl20 = gl;
+
+        Gdx.audio = newProxy( Audio.class, new NullObject() );
+        Gdx.input = newProxy( Input.class, new NullObject() );
+        Gdx.files = new LwjglFiles();
+    }
+
+    /**
+     *  Creates a batch that draws nothing and counts its calls.
+     *  @param counter receives the call counts
+     *  @return batch stand-in
+     */
+    public static Batch newBatch(CallCounter counter)
+    {
+        return newProxy( Batch.class, counter );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T newProxy(final Class<T> type, final InvocationHandler handler)
+    {
+        // equals, hashCode and toString keep their usual meaning: LibGDX keys its managed
+        //  textures and shaders by Gdx.app, and a stand-in equal to nothing would add a new key every time
+        InvocationHandler identity = new InvocationHandler()
+            {
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                {
+                    if ( method.getDeclaringClass() == Object.class )
+                    {
+                        String name = method.getName();
+                        if ( name.equals("equals") )
+                            return proxy == args[0];
+                        if ( name.equals("hashCode") )
+                            return System.identityHashCode(proxy);
+                        return "stand-in " + type.getSimpleName();
+                    }
+                    return handler.invoke(proxy, method, args);
+                }
+            };
+        return (T)Proxy.newProxyInstance( type.getClassLoader(), new Class<?>[] {type}, identity );
+    }
+
+    // zero value of the given type (null for objects)
+    private static Object defaultValue(Class<?> type)
+    {
+        if (type == boolean.class) return false;
+        if (type == int.class)     return 0;
+        if (type == long.class)    return 0L;
+        if (type == float.class)   return 0f;
+        if (type == double.class)  return 0.0;
+        if (type == short.class)   return (short)0;
+        if (type == byte.class)    return (byte)0;
+        if (type == char.class)    return (char)0;
+        return null;
+    }
+}
@@ -0,0 +1,495 @@
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.Animation.PlayMode;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.ui.Label.LabelStyle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.Scaling;
+import com.badlogic.gdx.utils.viewport.ScalingViewport;
+
+/**
+ * Checks of game behavior that can run without a window (see {@link HeadlessBackend}).
+ * Prints each check's result and exits with code 1 if any check fails:
+ * <pre>
+ * java -cp "classes:+libs/*" HeadlessChecks
+ * </pre>
+ * Run from the project folder, so that assets are found.
+ */
+public class HeadlessChecks
+{
+    private static int failures = 0;
+
+    public static void main(String[] args)
+    {
+        HeadlessBackend.install(BaseGame.VIEW_WIDTH, BaseGame.VIEW_HEIGHT);
+
+        // what BaseGame.create would provide; the default font avoids FreeType
+        BaseGame.assets = new AssetManager();
+        BaseGame.labelStyle = new LabelStyle( new BitmapFont(), Color.WHITE );
+
+        checkLayerOrder();
+        checkSingleGameOver();
+        checkOverlappingKeys();
+        checkFlowFieldCoversLevel();
+        checkFlowFieldWallEdges();
+        checkRaycast();
+        checkCommandQueue();
+        checkAnimationLoops();
+        checkGovernorSettles();
+        // last: replaces the assets and font above with the game's own
+        checkRepeatedPlays();
+
+        BaseGame.assets.dispose();
+        System.out.println(failures == 0 ? "all checks passed" : failures + " check(s) failed");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static void report(String name, boolean passed, String details)
+    {
+        System.out.println( (passed ? "  ok    " : "  FAIL  ") + name + " (" + details + ")" );
+        if (!passed)
+            failures++;
+    }
+
+    /**
+     * Actor that records its layer when drawn.
+     */
+    private static class LayerProbe extends Actor
+    {
+        private int layer;
+        private IntArray drawn;
+
+        LayerProbe(int layer, IntArray drawn)
+        {
+            this.layer = layer;
+            this.drawn = drawn;
+        }
+
+        public void draw(Batch batch, float parentAlpha)
+        {
+            drawn.add(layer);
+        }
+    }
+
+    /**
+     *  SpriteStage draws lower layers first, for negative and positive layers alike.
+     */
+    public static void checkLayerOrder()
+    {
+        SpriteStage stage = new SpriteStage(
+            new ScalingViewport(Scaling.stretch, 800, 600, new OrthographicCamera()),
+            HeadlessBackend.newBatch( new HeadlessBackend.CallCounter() ) );
+
+        int[] layers = { SpriteStage.EFFECT_LAYER, 0, SpriteStage.BACKGROUND_LAYER, -1, 1,
+            -4194304, 4194303 };
+        IntArray drawn = new IntArray();
+        for (int i = 0; i < layers.length; i++)
+        {
+            LayerProbe probe = new LayerProbe( layers[i], drawn );
+            stage.addActor(probe);
+            stage.setLayer( probe, layers[i] );
+        }
+        stage.draw();
+
+        boolean sorted = (drawn.size == layers.length);
+        for (int i = 1; i < drawn.size; i++)
+        {
+            if (drawn.get(i - 1) > drawn.get(i))
+                sorted = false;
+        }
+        report("layer order", sorted, "drawn " + drawn);
+        stage.dispose();
+    }
+
+    /**
+     *  Several hits that destroy the core in the same tick end the game once.
+     */
+    public static void checkSingleGameOver()
+    {
+        LevelScreen screen = new LevelScreen();
+        screen.coreHealth = 1;
+        for (int i = 0; i < 3; i++)
+            screen.events.post(GameEvent.Type.CORE_DAMAGED).amount = 1;
+        screen.events.dispatch();
+
+        int messages = screen.uiStage.getActors().size - 1;
+        report("single game over", screen.gameOver && messages == 1,
+            "health " + screen.coreHealth + ", game over messages " + messages);
+        screen.dispose();
+    }
+
+    /**
+     *  A command bound to two keys stays held until both are released.
+     */
+    public static void checkOverlappingKeys()
+    {
+        InputBuffer input = new InputBuffer();
+        InputBuffer.Command up = InputBuffer.Command.MOVE_UP;
+
+        input.keyDown(Keys.UP);
+        input.beginTick(Long.MAX_VALUE);
+        boolean pressed = input.wasPressed(up);
+
+        // tap the other key for the same command
+        input.keyDown(Keys.W);
+        input.beginTick(Long.MAX_VALUE);
+        boolean pressedAgain = input.wasPressed(up);
+        input.keyUp(Keys.W);
+        input.beginTick(Long.MAX_VALUE);
+        boolean heldAfterTap = input.isHeld(up) && !input.wasReleased(up);
+
+        input.keyUp(Keys.UP);
+        input.beginTick(Long.MAX_VALUE);
+        boolean releasedAtEnd = !input.isHeld(up) && input.wasReleased(up);
+
+        report("overlapping keys", pressed && !pressedAgain && heldAfterTap && releasedAtEnd,
+            "pressed " + pressed + ", pressed again " + pressedAgain
+            + ", held after tap " + heldAfterTap + ", released at end " + releasedAtEnd);
+    }
+
+    /**
+     *  Enemies path around every wall in the level, including walls in regions not streamed in.
+     */
+    public static void checkFlowFieldCoversLevel()
+    {
+        LevelScreen screen = new LevelScreen();
+        int walls = 0;
+        int open = 0;
+        LevelLayout layout = LevelLayout.load( LevelScreen.LEVEL_FOLDER, LevelScreen.LEVEL_COLUMNS,
+            LevelScreen.LEVEL_ROWS, LevelScreen.REGION_SIZE, LevelScreen.REGION_SIZE );
+        for ( RegionStreamer.Placement wall : layout.getAll("wall", new Array<RegionStreamer.Placement>()) )
+        {
+            walls++;
+            if ( screen.flowField.isReachable(wall.x + wall.width / 2, wall.y + wall.height / 2) )
+                open++;
+        }
+        int loaded = screen.streamer.getActiveRegionCount();
+        int regions = screen.streamer.columns * screen.streamer.rows;
+
+        report("flow field covers level", loaded < regions && walls > 0 && open == 0,
+            loaded + " of " + regions + " regions loaded, " + open + " of " + walls + " walls open to enemies");
+        screen.dispose();
+    }
+
+    /**
+     *  A wall blocks the cells it covers, not the next cells when its edges lie on cell boundaries,
+     *  and clearance widens it by whole cells on every side.
+     */
+    public static void checkFlowFieldWallEdges()
+    {
+        // 10 by 10 cells of 20 pixels, target in the lower-left cell
+        FlowField field = new FlowField(200, 200, 20);
+        field.setTarget(10, 10);
+        field.addObstacle( new Rectangle(100, 0, 20, 100) );
+        field.update();
+        boolean exact = !field.isReachable(110, 50) && field.isReachable(90, 50)
+            && field.isReachable(130, 50) && field.isReachable(110, 110);
+
+        FlowField inflated = new FlowField(200, 200, 20);
+        inflated.clearance = 20;
+        inflated.setTarget(10, 10);
+        inflated.addObstacle( new Rectangle(100, 0, 20, 100) );
+        inflated.update();
+        boolean widened = !inflated.isReachable(90, 50) && !inflated.isReachable(130, 50)
+            && !inflated.isReachable(110, 110) && inflated.isReachable(70, 50) && inflated.isReachable(150, 50)
+            && inflated.isReachable(110, 130);
+
+        report("flow field wall edges", exact && widened, "exact " + exact + ", widened by clearance " + widened);
+    }
+
+    /**
+     *  Ray casts hit walls kept through clears, including from inside, and miss removed walls.
+     */
+    public static void checkRaycast()
+    {
+        SpriteStage stage = new SpriteStage(
+            new ScalingViewport(Scaling.stretch, 800, 600, new OrthographicCamera()),
+            HeadlessBackend.newBatch( new HeadlessBackend.CallCounter() ) );
+        BaseActor wall = new BaseActor(300, 0, stage);
+        wall.setSize(100, 600);
+        wall.setBoundaryRectangle();
+        BaseActor enemy = new BaseActor(100, 250, stage);
+        enemy.setSize(50, 50);
+        enemy.setBoundaryRectangle();
+
+        SpatialGrid grid = new SpatialGrid(800, 600, 100);
+        grid.addStatic(wall);
+        grid.insert(enemy);
+        grid.clear();
+        // enemy cleared, wall kept
+        boolean kept = grid.raycast(50, 275, 500, 275) == wall;
+        boolean inside = grid.raycast(350, 300, 360, 300) == wall;
+        grid.insert(enemy);
+        boolean nearest = grid.raycast(50, 275, 500, 275) == enemy;
+        grid.removeStatic(wall);
+        boolean removed = grid.raycast(200, 275, 500, 275) == null;
+
+        report("ray casts", kept && inside && nearest && removed,
+            "wall kept " + kept + ", hit from inside " + inside + ", nearest first " + nearest
+            + ", removed wall missed " + removed);
+        stage.dispose();
+    }
+
+    /**
+     * Command that checks it runs after the previous command of the same producer.
+     */
+    private static class Numbered implements Runnable
+    {
+        private int producer;
+        private int number;
+        private int[] lastRun;
+        private int[] outOfOrder;
+
+        Numbered(int producer, int number, int[] lastRun, int[] outOfOrder)
+        {
+            this.producer = producer;
+            this.number = number;
+            this.lastRun = lastRun;
+            this.outOfOrder = outOfOrder;
+        }
+
+        public void run()
+        {
+            if (number != lastRun[producer] + 1)
+                outOfOrder[0]++;
+            lastRun[producer] = number;
+        }
+    }
+
+    /**
+     *  Commands from several threads all run, each thread's in the order posted;
+     *  posting to a full queue fails; clearing discards waiting commands and frees their slots.
+     */
+    public static void checkCommandQueue()
+    {
+        final int producers = 4;
+        final int perProducer = 200000;
+        final CommandQueue queue = new CommandQueue(1024);
+        final int[] lastRun = new int[producers];
+        final int[] outOfOrder = new int[1];
+        java.util.Arrays.fill(lastRun, -1);
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++)
+        {
+            final int producer = p;
+            threads[p] = new Thread( new Runnable()
+                {
+                    public void run()
+                    {
+                        for (int i = 0; i < perProducer; i++)
+                            queue.put( new Numbered(producer, i, lastRun, outOfOrder) );
+                    }
+                } );
+            threads[p].start();
+        }
+
+        // this thread is the consumer, like the render thread; gives up if commands stop arriving
+        long run = 0;
+        long deadline = System.currentTimeMillis() + 60000;
+        while (run < (long)producers * perProducer && System.currentTimeMillis() < deadline)
+        {
+            int count = queue.drain(Integer.MAX_VALUE, Long.MAX_VALUE);
+            if (count == 0)
+                Thread.yield();
+            run += count;
+        }
+        for (Thread thread : threads)
+        {
+            try
+            {
+                thread.join(1000);
+            }
+            catch (InterruptedException error)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        boolean allRun = (run == (long)producers * perProducer) && queue.size() == 0;
+        for (int p = 0; p < producers; p++)
+            allRun &= (lastRun[p] == perProducer - 1);
+
+        // capacity 4: the fifth post fails until commands are drained or cleared
+        CommandQueue small = new CommandQueue(4);
+        final int[] smallRun = new int[1];
+        Runnable count = new Runnable()
+            {
+                public void run()
+                {
+                    smallRun[0]++;
+                }
+            };
+        boolean filled = true;
+        for (int i = 0; i < 4; i++)
+            filled &= small.post(count);
+        boolean fullRejected = !small.post(count) && small.size() == 4;
+
+        small.clear();
+        boolean cleared = small.size() == 0 && small.drain() == 0 && smallRun[0] == 0;
+        boolean reusable = true;
+        for (int i = 0; i < 4; i++)
+            reusable &= small.post(count);
+        reusable &= small.drain() == 4 && smallRun[0] == 4;
+
+        report("command queue", allRun && outOfOrder[0] == 0 && filled && fullRejected && cleared && reusable,
+            run + " of " + (producers * perProducer) + " commands run, " + outOfOrder[0] + " out of order; "
+            + "full rejects post " + (filled && fullRejected) + ", clear " + cleared + ", reusable after clear " + reusable);
+    }
+
+    /**
+     *  Every looping play mode keeps elapsed time within one cycle,
+     *  and ping-pong shows the same frames as the unwrapped time would.
+     */
+    public static void checkAnimationLoops()
+    {
+        TextureRegion[] frames = { new TextureRegion(), new TextureRegion(), new TextureRegion() };
+        PlayMode[] modes = { PlayMode.LOOP, PlayMode.LOOP_REVERSED, PlayMode.LOOP_PINGPONG, PlayMode.LOOP_RANDOM };
+
+        boolean bounded = true;
+        int mismatches = 0;
+        for (PlayMode mode : modes)
+        {
+            Animator animator = new Animator();
+            animator.animation = new Animation<TextureRegion>(0.1f, frames);
+            animator.animation.setPlayMode(mode);
+            // sample mid-frame, away from frame boundaries
+            animator.update(0.05f);
+            for (int step = 1; step <= 10000; step++)
+            {
+                animator.update(0.1f);
+                bounded &= animator.elapsedTime < 0.6f;
+                if ( mode == PlayMode.LOOP_PINGPONG
+                    && animator.getKeyFrame() != animator.animation.getKeyFrame(0.05f + step * 0.1f) )
+                    mismatches++;
+            }
+        }
+
+        report("animation loops", bounded && mismatches == 0,
+            "elapsed time bounded " + bounded + ", ping-pong frame mismatches " + mismatches);
+    }
+
+    /**
+     *  A game limited by frame time (not work time) settles at the lowest quality instead of
+     *  alternating between levels, and a 30 Hz display is not taken for a slow game.
+     */
+    public static void checkGovernorSettles()
+    {
+        QualityGovernor governor = new QualityGovernor();
+        int changes = 0;
+        int previous = governor.getLevel();
+        for (int i = 0; i < 2000; i++)
+        {
+            governor.recordFrame(0.025f, 0.005f);
+            if (governor.getLevel() != previous)
+                changes++;
+            previous = governor.getLevel();
+        }
+        boolean settled = (governor.getLevel() == QualityGovernor.LEVEL_COUNT - 1)
+            && (changes == QualityGovernor.LEVEL_COUNT - 1);
+
+        QualityGovernor slowDisplay = new QualityGovernor();
+        slowDisplay.setRefreshRate(30);
+        for (int i = 0; i < 2000; i++)
+            slowDisplay.recordFrame(1 / 30f, 0.005f);
+
+        report("quality governor settles", settled && slowDisplay.getLevel() == 0,
+            "level " + governor.getLevel() + " after " + changes + " changes; at 30 Hz level " + slowDisplay.getLevel());
+    }
+
+    /**
+     *  Going from the menu to a level and back, again and again, holds no more resources
+     *  after the first few plays: the same textures, the same live actors, no leaked screens, a flat heap.
+     */
+    public static void checkRepeatedPlays()
+    {
+        final int plays = 12;
+        // plays before the figures are expected to have settled (caches filled, code compiled)
+        final int settlePlays = 2;
+        final long heapSlack = 4 * 1024 * 1024;
+
+        // sampled only below, after collecting garbage, so anything disposed but still reachable is a leak
+        ResourceTracker resources = BaseGame.resources;
+        resources.leakGraceTime = 0;
+        resources.sampleInterval = Float.MAX_VALUE;
+
+        BaseGame.assets.dispose();
+        SubSurvivalGame game = new SubSurvivalGame();
+        // loads the real font, and shows the menu
+        game.create();
+
+        int firstActors = 0, firstTextures = 0;
+        long firstTextureBytes = 0, firstHeap = 0;
+        boolean flat = true;
+        boolean transitions = true;
+        StringBuilder figures = new StringBuilder();
+        for (int play = 0; play < plays; play++)
+        {
+            transitions &= ( game.getScreen() instanceof MenuScreen );
+            press(game, Keys.S);
+            transitions &= ( game.getScreen() instanceof LevelScreen );
+            runFrames(game, 60);
+            press(game, Keys.ESCAPE);
+            transitions &= ( game.getScreen() instanceof MenuScreen );
+            // the replaced level is disposed at the start of the next frame
+            runFrames(game, 2);
+
+            for (int i = 0; i < 3; i++)
+                System.gc();
+            resources.sample();
+
+            if (play == settlePlays)
+            {
+                firstActors = resources.getActorCount();
+                firstTextures = resources.getTextureCount();
+                firstTextureBytes = resources.getTextureBytes();
+                firstHeap = resources.getHeapUsed();
+            }
+            else if (play > settlePlays)
+            {
+                flat &= resources.getActorCount() == firstActors
+                    && resources.getTextureCount() == firstTextures
+                    && resources.getTextureBytes() == firstTextureBytes
+                    && resources.getHeapUsed() <= firstHeap + heapSlack;
+            }
+            flat &= resources.getLeakCount() == 0;
+
+            if (play == settlePlays || play == plays - 1)
+                figures.append(figures.length() == 0 ? "" : "; ").append("play ").append(play + 1)
+                    .append(": actors ").append(resources.getActorCount())
+                    .append(", textures ").append(resources.getTextureCount())
+                    .append(" (").append(resources.getTextureBytes() / 1024).append(" KB)")
+                    .append(", heap ").append(resources.getHeapUsed() / (1024 * 1024)).append(" MB")
+                    .append(", leaks ").append(resources.getLeakCount());
+        }
+
+        report("menu, level, menu transitions", transitions, plays + " plays");
+        report("flat resources over repeated plays", flat, figures.toString());
+        game.dispose();
+    }
+
+    // a key press as the active screen's input would deliver it
+    private static void press(BaseGame game, int keycode)
+    {
+        BaseScreen screen = (BaseScreen)game.getScreen();
+        screen.uiStage.keyDown(keycode);
+        screen.uiStage.keyUp(keycode);
+    }
+
+    // frames of the whole game, each running one simulation tick whatever the real time
+    private static void runFrames(BaseGame game, int frames)
+    {
+        for (int i = 0; i < frames; i++)
+        {
+            ((BaseScreen)game.getScreen()).tick(Long.MAX_VALUE);
+            game.render();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.Queue;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Receives key and touch events as they arrive, translates them into game commands
+ * through a configurable key mapping, and queues them with their arrival time.
+ * The simulation consumes the queue one fixed-length tick at a time (see {@link #beginTick}),
+ * so each command is applied to the first tick that follows it, whatever the cost of rendering.
+ * <br>
+ * Game code reads command state with {@link #isHeld} (continuous) and {@link #wasPressed} (discrete)
+ * instead of polling Gdx.input.
+ * A command may have several sources (keys bound to it, and touches); it is held while any of them is down.
+ */
+public class InputBuffer implements InputProcessor
+{
+    /**
+     * Actions that keys and touches can be mapped to.
+     */
+    public enum Command
+    {
+        MOVE_UP, MOVE_DOWN, MOVE_LEFT, MOVE_RIGHT, FIRE
+    }
+
+    /**
+     * One queued change of command state.
+     */
+    private static class Event
+    {
+        Command command;
+        // key code, or TOUCH_SOURCE
+        int source;
+        boolean down;
+        // arrival time (nanoseconds, TimeUtils.nanoTime)
+        long time;
+        // touch position (screen pixels); -1 for keys
+        int screenX;
+        int screenY;
+    }
+
+    private static final Command[] COMMANDS = Command.values();
+    // source of touch events (never a key code)
+    private static final int TOUCH_SOURCE = Integer.MIN_VALUE;
+
+    // key code -> command
+    private IntMap<Command> keyMap;
+    // command for touches and mouse clicks; null to ignore them
+    private Command touchCommand;
+
+    private Queue<Event> events;
+    private Pool<Event> eventPool;
+
+    // command state during the current tick
+    private IntMap<Command> heldSources;   // source held down -> command it was mapped to when pressed
+    private int[] holdCount;               // number of sources holding each command
+    private boolean[] pressed;
+    private boolean[] released;
+    private int touchX;
+    private int touchY;
+
+    /**
+     *  Creates a buffer with the default mapping:
+     *  arrow keys and WASD move, space and touches fire.
+     */
+    public InputBuffer()
+    {
+        keyMap = new IntMap<Command>();
+        events = new Queue<Event>(32);
+        eventPool = new Pool<Event>(32)
+        {
+            protected Event newObject()
+            {
+                return new Event();
+            }
+        };
+
+        heldSources = new IntMap<Command>();
+        holdCount = new int[COMMANDS.length];
+        pressed = new boolean[COMMANDS.length];
+        released = new boolean[COMMANDS.length];
+
+        bind(Keys.UP, Command.MOVE_UP);
+        bind(Keys.W, Command.MOVE_UP);
+        bind(Keys.DOWN, Command.MOVE_DOWN);
+        bind(Keys.S, Command.MOVE_DOWN);
+        bind(Keys.LEFT, Command.MOVE_LEFT);
+        bind(Keys.A, Command.MOVE_LEFT);
+        bind(Keys.RIGHT, Command.MOVE_RIGHT);
+        bind(Keys.D, Command.MOVE_RIGHT);
+        bind(Keys.SPACE, Command.FIRE);
+        touchCommand = Command.FIRE;
+    }
+
+    /**
+     *  Maps a key to a command, replacing any previous mapping for that key.
+     *  @param keycode key (see Input.Keys)
+     *  @param command command sent while the key is held
+     */
+    public void bind(int keycode, Command command)
+    {
+        keyMap.put(keycode, command);
+    }
+
+    /**
+     *  Removes the mapping for a key.
+     *  @param keycode key (see Input.Keys)
+     */
+    public void unbind(int keycode)
+    {
+        keyMap.remove(keycode);
+    }
+
+    /**
+     *  @param command command sent while the screen is touched (or the mouse pressed); null to ignore touches
+     */
+    public void setTouchCommand(Command command)
+    {
+        touchCommand = command;
+    }
+
+    private boolean queue(Command command, int source, boolean down, int screenX, int screenY)
+    {
+        if (command == null)
+            return false;
+
+        Event e = eventPool.obtain();
+        e.command = command;
+        e.source = source;
+        e.down = down;
+        e.time = TimeUtils.nanoTime();
+        e.screenX = screenX;
+        e.screenY = screenY;
+        events.addLast(e);
+        return true;
+    }
+
+    /**
+     *  Starts a simulation tick: applies, in arrival order, every queued event
+     *  that arrived at or before the given time. Later events stay queued for later ticks.
+     *  @param time end of the tick (nanoseconds, same clock as TimeUtils.nanoTime)
+     */
+    public void beginTick(long time)
+    {
+        for (int i = 0; i < COMMANDS.length; i++)
+        {
+            pressed[i] = false;
+            released[i] = false;
+        }
+
+        while (events.size > 0 && events.first().time <= time)
+        {
+            Event e = events.removeFirst();
+
+            if (e.down)
+            {
+                // key repeat sends extra downs; only a source that was up counts
+                if ( !heldSources.containsKey(e.source) )
+                {
+                    heldSources.put(e.source, e.command);
+                    int i = e.command.ordinal();
+                    if (holdCount[i]++ == 0)
+                        pressed[i] = true;
+                }
+            }
+            else
+            {
+                // releases the command the source pressed, even if its mapping has changed since
+                Command command = heldSources.remove(e.source);
+                if (command != null)
+                {
+                    int i = command.ordinal();
+                    if (--holdCount[i] == 0)
+                        released[i] = true;
+                }
+            }
+
+            if (e.screenX >= 0)
+            {
+                touchX = e.screenX;
+                touchY = e.screenY;
+            }
+            eventPool.free(e);
+        }
+    }
+
+    /**
+     *  @return true if any source of the command is down during the current tick
+     */
+    public boolean isHeld(Command command)
+    {
+        return holdCount[command.ordinal()] > 0;
+    }
+
+    /**
+     *  @return true if the command started during the current tick (its first source went down)
+     *  (also true when it was pressed and released within the same tick)
+     */
+    public boolean wasPressed(Command command)
+    {
+        return pressed[command.ordinal()];
+    }
+
+    /**
+     *  @return true if the command ended during the current tick (its last source went up)
+     */
+    public boolean wasReleased(Command command)
+    {
+        return released[command.ordinal()];
+    }
+
+    /**
+     *  @return horizontal position (screen pixels) of the most recent touch applied
+     */
+    public int getTouchX()
+    {
+        return touchX;
+    }
+
+    /**
+     *  @return vertical position (screen pixels, measured from the top) of the most recent touch applied
+     */
+    public int getTouchY()
+    {
+        return touchY;
+    }
+
+    /**
+     *  Discards queued events and releases every command;
+     *  used when the screen stops receiving input, so no key stays stuck down.
+     */
+    public void clear()
+    {
+        while (events.size > 0)
+            eventPool.free( events.removeFirst() );
+        heldSources.clear();
+        for (int i = 0; i < COMMANDS.length; i++)
+        {
+            holdCount[i] = 0;
+            pressed[i] = false;
+            released[i] = false;
+        }
+    }
+
+    // methods required by InputProcessor interface
+
+    public boolean keyDown(int keycode)
+    {
+        return queue( keyMap.get(keycode), keycode, true, -1, -1 );
+    }
+
+    public boolean keyUp(int keycode)
+    {
+        // a key unbound while held still releases its command
+        Command command = keyMap.get(keycode);
+        if (command == null)
+            command = heldSources.get(keycode);
+        return queue( command, keycode, false, -1, -1 );
+    }
+
+    public boolean touchDown(int screenX, int screenY, int pointer, int button)
+    {
+        // only the first finger is tracked
+        if (pointer != 0)
+            return false;
+        return queue( touchCommand, TOUCH_SOURCE, true, screenX, screenY );
+    }
+
+    public boolean touchUp(int screenX, int screenY, int pointer, int button)
+    {
+        if (pointer != 0)
+            return false;
+        // a touch command cleared while touching still releases its command
+        Command command = touchCommand;
+        if (command == null)
+            command = heldSources.get(TOUCH_SOURCE);
+        return queue( command, TOUCH_SOURCE, false, screenX, screenY );
+    }
+
+    public boolean keyTyped(char character)
+    {
+        return false;
+    }
+
+    public boolean touchDragged(int screenX, int screenY, int pointer)
+    {
+        return false;
+    }
+
+    public boolean mouseMoved(int screenX, int screenY)
+    {
+        return false;
+    }
+
+    public boolean scrolled(int amount)
+    {
+        return false;
+    }
+}
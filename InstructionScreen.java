@@ -12,11 +12,42 @@ public class InstructionScreen extends BaseScreen
 {
     public void initialize()
     {
+        Label instructions = new Label(
+            "Defend the core from the enemy subs.\n"
+            + "Arrow keys or WASD: move\n"
+            + "Space: fire\n"
+            + "Escape: return to the menu\n\n"
+            + "Press S to start, M for the menu", BaseGame.labelStyle);
+        instructions.setFontScale(0.5f);
+        uiTable.add(instructions);
 
+        // the level can be started from here too (usually already loaded from the menu)
+        LevelScreen.preload();
+
+        onKeyPressed( Keys.S, new Runnable()
+            {
+                public void run()
+                {
+                    BaseGame.setActiveScreen( new LevelScreen() );
+                }
+            } );
+        onKeyPressed( Keys.M, new Runnable()
+            {
+                public void run()
+                {
+                    BaseGame.setActiveScreen(MenuScreen.class);
+                }
+            } );
     }
 
     public void update(float deltaTime)
     {
 
     }
+
+    // no per-visit state, so the same instance is shown every time
+    public boolean isCacheable()
+    {
+        return true;
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
+import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 
 /**
  * <p>Class that contains the main method that runs when the program is launched.</p>
@@ -19,7 +20,15 @@ public class Launcher
         // To start a LibGDX program, this method:
         // (1) creates an instance of the game
         // (2) creates a new application with game instance and window settings as argument
-        Game game = new TemplateGame();
-        LwjglApplication launcher = new LwjglApplication(game, "Sub Survival", 800, 600);
+        Game game = new SubSurvivalGame();
+
+        // window starts at the size of the game's view and may be resized or maximized
+        LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
+        config.title = "Sub Survival";
+        config.width = BaseGame.VIEW_WIDTH;
+        config.height = BaseGame.VIEW_HEIGHT;
+        config.resizable = true;
+
+        LwjglApplication launcher = new LwjglApplication(game, config);
     }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Contents of every region file of a level (see {@link RegionStreamer} for the format),
+ * for data needed across the whole level whatever is loaded, such as the wall layout for path finding.
+ * <br>
+ * Loaded through {@link BaseGame#assets}, so the files are read and parsed on the asset manager's
+ * background thread, and kept (like textures) until the game exits:
+ * {@link #preload} starts loading ahead of time, {@link #load} waits for the result.
+ */
+public class LevelLayout
+{
+    public final int columns;
+    public final int rows;
+
+    // indexed by row * columns + column; empty for missing files
+    private Array<RegionStreamer.Placement>[] regions;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private LevelLayout(int columns, int rows)
+    {
+        this.columns = columns;
+        this.rows = rows;
+        regions = new Array[columns * rows];
+    }
+
+    /**
+     *  @return placements of one region in world coordinates, in file order
+     */
+    public Array<RegionStreamer.Placement> getRegion(int column, int row)
+    {
+        return regions[row * columns + column];
+    }
+
+    /**
+     *  Collects placements of one kind from every region.
+     *  @param type kind of placement (first word of the line), or null for all
+     *  @param out array the placements are added to
+     *  @return out
+     */
+    public Array<RegionStreamer.Placement> getAll(String type, Array<RegionStreamer.Placement> out)
+    {
+        for (Array<RegionStreamer.Placement> region : regions)
+        {
+            for (RegionStreamer.Placement p : region)
+            {
+                if (type == null || p.type.equals(type))
+                    out.add(p);
+            }
+        }
+        return out;
+    }
+
+    /**
+     *  Starts reading a level's region files on a background thread; does nothing if already loaded.
+     *  @param folder folder containing the level's region files
+     *  @param columns number of regions across
+     *  @param rows number of regions up
+     *  @param regionWidth width of each region (world units)
+     *  @param regionHeight height of each region (world units)
+     */
+    public static void preload(String folder, int columns, int rows, float regionWidth, float regionHeight)
+    {
+        AssetManager assets = BaseGame.assets;
+        if ( assets.getLoader(LevelLayout.class) == null )
+            assets.setLoader( LevelLayout.class, new Loader( new InternalFileHandleResolver() ) );
+
+        if ( !assets.isLoaded(folder, LevelLayout.class) )
+        {
+            Parameters parameters = new Parameters();
+            parameters.columns = columns;
+            parameters.rows = rows;
+            parameters.regionWidth = regionWidth;
+            parameters.regionHeight = regionHeight;
+            assets.load(folder, LevelLayout.class, parameters);
+        }
+    }
+
+    /**
+     *  Gets a level's layout, waiting for it to be read if needed (see {@link #preload}).
+     *  @return layout of the level
+     */
+    public static LevelLayout load(String folder, int columns, int rows, float regionWidth, float regionHeight)
+    {
+        if ( !BaseGame.assets.isLoaded(folder, LevelLayout.class) )
+        {
+            preload(folder, columns, rows, regionWidth, regionHeight);
+            BaseGame.assets.finishLoadingAsset(folder);
+        }
+        return BaseGame.assets.get(folder, LevelLayout.class);
+    }
+
+    /**
+     * Size of the region grid, needed to find and place the region files.
+     */
+    public static class Parameters extends AssetLoaderParameters<LevelLayout>
+    {
+        public int columns;
+        public int rows;
+        public float regionWidth;
+        public float regionHeight;
+    }
+
+    /**
+     * Reads a level folder's region files; the parsing happens in {@link #loadAsync}, off the render thread.
+     */
+    public static class Loader extends AsynchronousAssetLoader<LevelLayout, Parameters>
+    {
+        private LevelLayout layout;
+
+        public Loader(FileHandleResolver resolver)
+        {
+            super(resolver);
+        }
+
+        @SuppressWarnings("rawtypes")
+        public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, Parameters parameters)
+        {
+            return null;
+        }
+
+        public void loadAsync(AssetManager manager, String fileName, FileHandle folder, Parameters parameters)
+        {
+            if (parameters == null)
+                throw new GdxRuntimeException("Region grid size needed to load " + fileName);
+
+            layout = new LevelLayout(parameters.columns, parameters.rows);
+            for (int row = 0; row < parameters.rows; row++)
+            {
+                for (int column = 0; column < parameters.columns; column++)
+                {
+                    FileHandle file = folder.child( RegionStreamer.getRegionFileName(column, row) );
+                    layout.regions[row * parameters.columns + column] = file.exists()
+                        ? RegionStreamer.parse( file.readString(), column * parameters.regionWidth,
+                            row * parameters.regionHeight, file.path() )
+                        : new Array<RegionStreamer.Placement>();
+                }
+            }
+        }
+
+        public LevelLayout loadSync(AssetManager manager, String fileName, FileHandle folder, Parameters parameters)
+        {
+            LevelLayout result = layout;
+            layout = null;
+            return result;
+        }
+    }
+}
@@ -1,32 +1,75 @@
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.scenes.scene2d.Action;
 import com.badlogic.gdx.scenes.scene2d.actions.Actions;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.audio.Music;
 
 public class LevelScreen extends BaseScreen
+    implements ProjectileSystem.HitListener, GameEvent.Listener, RegionStreamer.Spawner
 {
     //the initial things we need to get like the sounds and the name of objects
-    Sound pH,Ph;//any variation of PH is just a placeholder
-    Music PH;
+    Sound explodeSound, collectSound, launchSound;
+    Music PH;//any variation of PH is just a placeholder
+
+    // images and sounds used by the level, loaded ahead of time (see preload)
+    public static final String[] TEXTURES = {
+        "assets/images/water.jpg", "assets/images/sub.png", "assets/images/subenemy.png",
+        "assets/images/the-core.png", "assets/images/bullet.png", "assets/images/explosion.png" };
+    public static final String[] SOUNDS = {
+        "assets/audio/sfx/Explode.wav", "assets/audio/sfx/Item-Collect.wav", "assets/audio/sfx/Missile-Launch.wav" };
 
     Submarine submarine;
+    // changed only by event handlers (see handle)
     int coreHealth, score;
+    boolean gameOver;
     Label CoreLabel, ScoreLabel;
 
+    ParallaxBackground background;
+
+    // the level's region files (see RegionStreamer): folder, number of regions across and up, region size
+    static final String LEVEL_FOLDER = "assets/levels/level-1";
+    static final int LEVEL_COLUMNS = 4;
+    static final int LEVEL_ROWS = 1;
+    static final float REGION_SIZE = 800;
+
+    // walls, enemies and items are loaded region by region around the camera
+    RegionStreamer streamer;
+    float worldWidth, worldHeight;
+
+    Core core;
+    // directions toward the core, shared by every enemy sub
+    FlowField flowField;
+
+    // bullets are hit-tested against walls and enemies stored in this grid
+    //  (walls are added when streamed in; enemies are re-inserted every tick)
+    SpatialGrid broadPhase;
+    ProjectileSystem projectiles;
+
+    // streamed-in walls and living enemies, kept as they are created and removed
+    //  so that each tick does not search the stage for them
+    Array<Wall> walls;
+    Array<EnemySub> enemies;
+
     
     public void initialize()
     {
         score = 0;
+        coreHealth = 10;
+        gameOver = false;
         ScoreLabel = new Label("Score: " + score, BaseGame.labelStyle);
         ScoreLabel.setFontScale(0.5f);
+        CoreLabel = new Label("Core: " + coreHealth, BaseGame.labelStyle);
+        CoreLabel.setFontScale(0.5f);
 
         uiTable.add( ScoreLabel ).expandX().expandY().left().top().pad(20);
         uiTable.add().expandX();
-        uiTable.add();
+        uiTable.add( CoreLabel ).right().top().pad(20);
         uiTable.row();
         uiTable.add();
         uiTable.row();
@@ -39,31 +82,186 @@ public class LevelScreen extends BaseScreen
         
         
         
-        //WE NEED TO BUILD A WALL
-        Wall leftWall = new Wall(0,0, mainStage);
-        leftWall.setSize(20, 800);
-        leftWall.setBoundaryRectangle();
-
-        Wall bottomtWall = new Wall(0,0, mainStage);
-       bottomtWall.setSize(800,100);
-        bottomtWall.setBoundaryRectangle();
-
-        Wall topWall = new Wall(0,700, mainStage);
-        topWall.setSize(800,100);
-        topWall.setBoundaryRectangle();
+        //WATER SCROLLS BEHIND EVERYTHING; the faint front layer drifts for a current effect
+        background = new ParallaxBackground(mainStage);
+        background.addLayer("assets/images/water.jpg", 0.5f, 0, 0);
+        background.addLayer("assets/images/water.jpg", 1, -20, 0).tint.a = 0.3f;
+
+        //THE LEVEL: walls, enemies and items are listed in region files (see RegionStreamer)
+        streamer = new RegionStreamer(LEVEL_FOLDER, LEVEL_COLUMNS, LEVEL_ROWS, REGION_SIZE, REGION_SIZE, this, commands);
+        worldWidth = streamer.getWorldWidth();
+        worldHeight = streamer.getWorldHeight();
+
+        //THE CORE THAT ENEMIES ARE HEADING FOR
+        core = new Core(20, 160, mainStage);
+
+        //THE PLAYER, steered by the screen's input commands
+        submarine = new Submarine(200, 380, mainStage);
+        submarine.controls = input;
+
+        // paths are planned around every wall in the level, not only those streamed in,
+        //  since enemies outlive their regions (and new ones may appear anywhere);
+        //  the files are parsed on the asset manager's thread (usually while the menu is showing)
+        flowField = new FlowField(worldWidth, worldHeight, 20);
+        // enemy subs (98 by 48) steer by their center and face their heading: keep their sides off walls
+        flowField.clearance = 24;
+        flowField.setTarget( core.getX() + core.getOriginX(), core.getY() + core.getOriginY() );
+        LevelLayout layout = LevelLayout.load(LEVEL_FOLDER, LEVEL_COLUMNS, LEVEL_ROWS, REGION_SIZE, REGION_SIZE);
+        // regions are created from the parsed layout, not read again
+        streamer.layout = layout;
+        Rectangle area = new Rectangle();
+        for ( RegionStreamer.Placement wall : layout.getAll("wall", new Array<RegionStreamer.Placement>()) )
+            flowField.addObstacle( area.set(wall.x, wall.y, wall.width, wall.height) );
+
+        walls = new Array<Wall>(false, 32);
+        enemies = new Array<EnemySub>(false, 64);
+        broadPhase = new SpatialGrid(worldWidth, worldHeight, 100);
+        projectiles = new ProjectileSystem("assets/images/bullet.png", 4096, worldWidth, worldHeight, mainStage);
+        projectiles.hitListener = this;
+
+        // the regions around the starting view are complete before the first frame
+        submarine.alignCamera(worldWidth, worldHeight);
+        streamer.finishLoading( mainStage.getCamera() );
+        flowField.update();
+
+        explodeSound = BaseGame.loadSound( SOUNDS[0] );
+        collectSound = BaseGame.loadSound( SOUNDS[1] );
+        launchSound = BaseGame.loadSound( SOUNDS[2] );
+
+        // score, health, HUD and sounds only change when one of these happens
+        for ( GameEvent.Type type : GameEvent.Type.values() )
+            events.addListener(type, this);
+
+        // leaving disposes this level (it is not cached); the next play starts a new one
+        onKeyPressed( Keys.ESCAPE, new Runnable()
+            {
+                public void run()
+                {
+                    BaseGame.setActiveScreen(MenuScreen.class);
+                }
+            } );
+    }
+
+    /**
+     *  Starts loading the level's images, sounds and layout in the background,
+     *  so that creating a level (when a player starts) does not wait for files.
+     *  Called by the screens that lead to the level.
+     */
+    public static void preload()
+    {
+        BaseGame.preloadTextures(TEXTURES);
+        BaseGame.preloadSounds(SOUNDS);
+        LevelLayout.preload(LEVEL_FOLDER, LEVEL_COLUMNS, LEVEL_ROWS, REGION_SIZE, REGION_SIZE);
+    }
+
+    /**
+     *  Creates an enemy sub that follows the shared flow field toward the core.
+     */
+    public EnemySub spawnEnemy(float x, float y)
+    {
+        EnemySub enemy = new EnemySub(x, y, mainStage);
+        enemy.flowField = flowField;
+        enemies.add(enemy);
+        return enemy;
+    }
+
+    /**
+     *  Creates an actor listed in a region file: "wall x y width height", "enemy x y" or "item x y".
+     */
+    public BaseActor spawn(String type, float x, float y, float width, float height)
+    {
+        if (type.equals("wall"))
+        {
+            // already in the flow field (see initialize)
+            Wall wall = new Wall(x, y, mainStage);
+            wall.setSize(width, height);
+            wall.setBoundaryRectangle();
+            walls.add(wall);
+            broadPhase.addStatic(wall);
+            return wall;
+        }
+        else if (type.equals("enemy"))
+            return spawnEnemy(x, y);
+        else if (type.equals("item"))
+            return new Item(x, y, mainStage);
+
+        Gdx.app.error("LevelScreen", "unknown region object: " + type);
+        return null;
+    }
+
+    /**
+     *  Called before a streamed actor is removed because its region was unloaded;
+     *  walls stay in the flow field, which covers the whole level.
+     */
+    public void despawn(BaseActor actor)
+    {
+        if (actor instanceof Wall)
+        {
+            walls.removeValue( (Wall)actor, true );
+            broadPhase.removeStatic(actor);
+        }
+        else if (actor instanceof EnemySub)
+            enemies.removeValue( (EnemySub)actor, true );
     }
 
     public void update(float deltaTime)
     {
-        
-        
-        
+        if (gameOver)
+            return;
+
+        // only does work if walls were added or removed since last frame
+        flowField.update();
+
+        // enemies destroyed since last tick are no longer on the stage
+        for (int i = enemies.size - 1; i >= 0; i--)
+        {
+            if (enemies.get(i).getStage() == null)
+                enemies.removeIndex(i);
+        }
+
+        for (EnemySub enemy : enemies)
+        {
+            if ( enemy.overlaps(core) )
+            {
+                enemy.remove();
+                GameEvent hit = events.post(GameEvent.Type.CORE_DAMAGED);
+                hit.actor = enemy;
+                hit.amount = 1;
+            }
+        }
+
+        // fire from the front of the submarine
+        if ( input.wasPressed(InputBuffer.Command.FIRE) )
+        {
+            float angle = submarine.getRotation();
+            float x = submarine.getX() + submarine.getOriginX() + submarine.getWidth()/2 * MathUtils.cosDeg(angle);
+            float y = submarine.getY() + submarine.getOriginY() + submarine.getWidth()/2 * MathUtils.sinDeg(angle);
+            projectiles.fire( x, y, angle, 600, 2 );
+
+            GameEvent shot = events.post(GameEvent.Type.PLAYER_FIRED);
+            shot.x = x;
+            shot.y = y;
+        }
+
+        // re-insert enemies at their current positions (walls stay), then move bullets through the grid
+        broadPhase.clear();
+        for (EnemySub enemy : enemies)
+        {
+            if (enemy.getStage() != null)
+                broadPhase.insert(enemy);
+        }
+        projectiles.update(deltaTime, broadPhase);
         
                 // stop paddle from passing through walls
-        for (BaseActor wall : BaseActor.getList(mainStage, "Wall"))
+        for (Wall wall : walls)
         {
             submarine.preventOverlap(wall);
         }
+        submarine.boundToWorld(worldWidth, worldHeight);
+        submarine.alignCamera(worldWidth, worldHeight);
+
+        // load regions coming into view and drop distant ones, a few actors at a time
+        streamer.update( mainStage.getCamera() );
         //ITEMS SPAWN
         for (BaseActor actor : BaseActor.getList(mainStage, "Item"))
         {
@@ -72,15 +270,100 @@ public class LevelScreen extends BaseScreen
             if ( submarine.overlaps(item) )
             {
                 item.remove();
+                events.post(GameEvent.Type.ITEM_COLLECTED).actor = item;
+            }
+        }
+
+    }
+
+    /**
+     *  Called by the projectile system when a bullet crosses a wall or an enemy.
+     */
+    public boolean onHit(BaseActor target, float x, float y)
+    {
+        // already destroyed by an earlier bullet this frame
+        if (target.getStage() == null)
+            return false;
+
+        if (target instanceof EnemySub)
+        {
+            // removed now, so later bullets this tick pass through; the rest happens at dispatch
+            target.remove();
+            GameEvent kill = events.post(GameEvent.Type.ENEMY_KILLED);
+            kill.actor = target;
+            kill.amount = 1;
+            kill.x = target.getX() + target.getOriginX();
+            kill.y = target.getY() + target.getOriginY();
+        }
+        return true;
+    }
+
+    /**
+     *  Applies an event to the game state, HUD and sounds; called once per event at the end of a tick.
+     */
+    public void handle(GameEvent event)
+    {
+        switch (event.type)
+        {
+            case ENEMY_KILLED:
+                score += event.amount;
+                ScoreLabel.setText("Score: " + score);
+                explodeSound.play();
 
+                // explosions are cosmetic; fewer are created when the game is running slowly
+                if ( MathUtils.random() < governor.getEffectDensity() )
+                {
+                    Explosion boom = new Explosion(0, 0, mainStage);
+                    boom.setPosition( event.x - boom.getOriginX(), event.y - boom.getOriginY() );
+                }
+                break;
+
+            case CORE_DAMAGED:
+                // game over is posted once, by the hit that takes the core's health to zero
+                //  (several hits may be dispatched before GAME_OVER is handled)
+                boolean wasAlive = coreHealth > 0;
+                coreHealth = Math.max(0, coreHealth - event.amount);
+                CoreLabel.setText("Core: " + coreHealth);
+                explodeSound.play();
+                if (wasAlive && coreHealth == 0)
+                    events.post(GameEvent.Type.GAME_OVER);
+                break;
+
+            case ITEM_COLLECTED:
+                collectSound.play();
+                Item item = (Item)event.actor;
                 if (item.itemName.equals("NAMED"))
                 {
                     //WHAT IT DOES
                 }
                 else if (item.itemName.equals("")){
                 }
-            }
+                break;
+
+            case PLAYER_FIRED:
+                launchSound.play();
+                break;
+
+            case GAME_OVER:
+                gameOver = true;
+                submarine.controls = null;
+
+                BaseActor message = new BaseActor(0, 0, uiStage);
+                message.setAnimator( new Animator("assets/images/gameover.png") );
+                message.setPosition( (uiStage.getWidth() - message.getWidth()) / 2,
+                    (uiStage.getHeight() - message.getHeight()) / 2 );
+                message.getColor().a = 0;
+                message.addAction( Actions.fadeIn(1) );
+                break;
         }
+    }
 
+    /**
+     *  Stops the region loading thread, then releases the stages.
+     */
+    public void dispose()
+    {
+        streamer.dispose();
+        super.dispose();
     }
-}
\ No newline at end of file
+}
@@ -11,11 +11,44 @@ public class MenuScreen extends BaseScreen
 {
     public void initialize()
     {
+        BaseActor title = new BaseActor(0, 0, uiStage);
+        title.setAnimator( new Animator("assets/images/title.png") );
 
+        Label startMessage = new Label("Press S to start, I for instructions", BaseGame.labelStyle);
+        startMessage.setFontScale(0.5f);
+
+        uiTable.add(title);
+        uiTable.row();
+        uiTable.add(startMessage).pad(20);
+
+        // every play starts a new level; the menu and instructions are reused
+        onKeyPressed( Keys.S, new Runnable()
+            {
+                public void run()
+                {
+                    BaseGame.setActiveScreen( new LevelScreen() );
+                }
+            } );
+        onKeyPressed( Keys.I, new Runnable()
+            {
+                public void run()
+                {
+                    BaseGame.setActiveScreen(InstructionScreen.class);
+                }
+            } );
+
+        // decode level images and sounds, and parse its layout, in the background while the menu is showing
+        LevelScreen.preload();
     }
 
     public void update(float deltaTime)
     {
 
     }
+
+    // no per-visit state, so the same instance is shown every time
+    public boolean isCacheable()
+    {
+        return true;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.Texture.TextureWrap;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Scrolling background made of repeating texture layers.
+ * Each layer is drawn as one quad covering exactly the camera's view,
+ * with texture coordinates offset by the camera position (times the layer's speed)
+ * and wrapped by the GPU; the cost is one quad per layer, whatever the world size.
+ * Camera position is set elsewhere, typically by {@link BaseActor#alignCamera}.
+ */
+public class ParallaxBackground extends Actor
+{
+    /**
+     * One repeating image and how it moves relative to the camera.
+     */
+    public static class Layer
+    {
+        public Texture texture;
+        // 0 = fixed to screen, 1 = fixed to world, between = distant
+        public float speedFactor;
+        // extra movement independent of the camera (pixels/second)
+        public float driftX;
+        public float driftY;
+        public Color tint;
+
+        private float offsetX;
+        private float offsetY;
+    }
+
+    private Array<Layer> layers;
+
+    /**
+     *  Creates a background with no layers, placed behind all other actors on the stage.
+     *  @param s stage whose camera determines what is visible
+     */
+    public ParallaxBackground(Stage s)
+    {
+        super();
+        s.addActor(this);
+        toBack();
+        if (s instanceof SpriteStage)
+            ((SpriteStage)s).setLayer(this, SpriteStage.BACKGROUND_LAYER);
+
+        layers = new Array<Layer>();
+    }
+
+    /**
+     *  Adds a layer drawn in front of previously added layers.
+     *  @param fileName image to repeat across the background
+     *  @param speedFactor how far the layer moves per pixel of camera movement
+     *  @param driftX constant horizontal scrolling (pixels/second)
+     *  @param driftY constant vertical scrolling (pixels/second)
+     *  @return layer created (tint may be changed afterwards)
+     */
+    public Layer addLayer(String fileName, float speedFactor, float driftX, float driftY)
+    {
+        Layer layer = new Layer();
+        layer.texture = new Animator(fileName).getKeyFrame().getTexture();
+        layer.texture.setWrap( TextureWrap.Repeat, TextureWrap.Repeat );
+        layer.speedFactor = speedFactor;
+        layer.driftX = driftX;
+        layer.driftY = driftY;
+        layer.tint = new Color(Color.WHITE);
+        layers.add(layer);
+        return layer;
+    }
+
+    public void act(float dt)
+    {
+        super.act(dt);
+
+        for (Layer layer : layers)
+        {
+            // keep offsets small so texture coordinates stay precise
+            layer.offsetX = (layer.offsetX + layer.driftX * dt) % layer.texture.getWidth();
+            layer.offsetY = (layer.offsetY + layer.driftY * dt) % layer.texture.getHeight();
+        }
+    }
+
+    public void draw(Batch batch, float parentAlpha)
+    {
+        Camera cam = getStage().getCamera();
+
+        float zoom = 1;
+        if (cam instanceof OrthographicCamera)
+            zoom = ((OrthographicCamera)cam).zoom;
+
+        float viewWidth = cam.viewportWidth * zoom;
+        float viewHeight = cam.viewportHeight * zoom;
+        float left = cam.position.x - viewWidth / 2;
+        float bottom = cam.position.y - viewHeight / 2;
+
+        for (Layer layer : layers)
+        {
+            float texWidth = layer.texture.getWidth();
+            float texHeight = layer.texture.getHeight();
+
+            float u = (left * layer.speedFactor + layer.offsetX) / texWidth;
+            float u2 = u + viewWidth / texWidth;
+            // texture v increases downward, so the bottom edge gets the larger value
+            float v = -(bottom * layer.speedFactor + layer.offsetY) / texHeight;
+            float v2 = v - viewHeight / texHeight;
+
+            Color c = layer.tint;
+            batch.setColor(c.r, c.g, c.b, c.a * parentAlpha);
+            batch.draw( layer.texture, left, bottom, viewWidth, viewHeight, u, v, u2, v2 );
+        }
+    }
+}
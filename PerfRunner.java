@@ -0,0 +1,364 @@
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.scenes.scene2d.ui.Label.LabelStyle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonWriter.OutputType;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * Runs performance scenarios (see {@link PerfScenario}) against LevelScreen without a window,
+ * writes a JSON report for each, and compares it with a stored baseline.
+ * <br>
+ * Each scenario runs a new LevelScreen for a fixed number of simulation ticks, as fast as possible,
+ * timing every tick (update and draw), and records: a histogram and percentiles of tick times,
+ * bytes allocated per tick by the game thread, heap high-water mark, garbage collections,
+ * and sprite batch flushes per frame.
+ * <br>
+ * Reports are written to <code>perf/reports</code>; baselines are read from <code>perf/baselines</code>.
+ * A run fails (exit code 1) when a figure grows beyond the scenario's allowed ratio over its baseline,
+ * or when a scenario has no baseline (unless <code>--allow-missing-baseline</code> is given,
+ * such as for a scenario just added). Baselines depend on the machine, so record them on the machine
+ * that runs the comparison:
+ * <pre>
+ * java -cp "classes:+libs/*" PerfRunner --update-baseline      (record baselines)
+ * java -cp "classes:+libs/*" PerfRunner                        (all scenarios in perf/scenarios)
+ * java -cp "classes:+libs/*" PerfRunner --allow-missing-baseline   (report scenarios without a baseline, but pass)
+ * java -cp "classes:+libs/*" PerfRunner --duration-scale 0.1 perf/scenarios/swarm-2000.json
+ * </pre>
+ * Run from the project folder, so that assets and perf files are found.
+ */
+public class PerfRunner
+{
+    /**
+     * Results of one scenario run; also the format of baseline files.
+     */
+    public static class Report
+    {
+        public String scenario;
+        public int ticks;
+        public float simulatedSeconds;
+        public float wallSeconds;
+
+        // time per tick (update and draw), milliseconds
+        public float meanMillis;
+        public float p50Millis;
+        public float p95Millis;
+        public float p99Millis;
+        public float maxMillis;
+        // histogramCounts[i] ticks took at most histogramLimitsMillis[i] (and more than the previous limit);
+        //  the last count is for ticks over every limit
+        public float[] histogramLimitsMillis;
+        public int[] histogramCounts;
+
+        // allocation by the game thread during ticks; -1 if the JVM cannot measure it
+        public float allocatedBytesPerTick;
+        public float allocatedMBPerSecond;
+
+        // highest heap use during the run (sum of heap pool peaks), megabytes
+        public float heapHighWaterMB;
+        public int gcCount;
+        public long gcMillis;
+
+        // sprite batch flushes (OpenGL draw calls) and render queue texture switches per drawn frame
+        //  of the game world; 0 if the scenario does not draw
+        public float meanRenderCalls;
+        public int maxRenderCalls;
+        public float meanTextureSwitches;
+        public int maxTextureSwitches;
+
+        public int actorsAtEnd;
+        public String javaVersion;
+    }
+
+    private static final float[] HISTOGRAM_LIMITS = { 0.1f, 0.25f, 0.5f, 1, 2, 4, 8, 16.7f, 33.3f };
+
+    // differences this small are noise, whatever the ratio
+    private static final float TIME_SLACK_MILLIS = 0.02f;
+    private static final float ALLOCATION_SLACK_BYTES = 64;
+    private static final float HEAP_SLACK_MB = 4;
+
+    public static void main(String[] args)
+    {
+        boolean updateBaseline = false;
+        boolean allowMissingBaseline = false;
+        float durationScale = 1;
+        Array<FileHandle> files = new Array<FileHandle>();
+
+        HeadlessBackend.install(BaseGame.VIEW_WIDTH, BaseGame.VIEW_HEIGHT);
+
+        for (int i = 0; i < args.length; i++)
+        {
+            if ( args[i].equals("--update-baseline") )
+                updateBaseline = true;
+            else if ( args[i].equals("--allow-missing-baseline") )
+                allowMissingBaseline = true;
+            else if ( args[i].equals("--duration-scale") )
+                durationScale = Float.parseFloat( args[++i] );
+            else
+                files.add( Gdx.files.local(args[i]) );
+        }
+        if (files.size == 0)
+        {
+            for (FileHandle file : Gdx.files.local("perf/scenarios").list(".json"))
+                files.add(file);
+            files.sort( new java.util.Comparator<FileHandle>()
+                {
+                    public int compare(FileHandle a, FileHandle b)
+                    {
+                        return a.name().compareTo( b.name() );
+                    }
+                } );
+        }
+
+        // what BaseGame.create would provide; the default font avoids FreeType
+        BaseGame.assets = new AssetManager();
+        BaseGame.labelStyle = new LabelStyle( new BitmapFont(), Color.WHITE );
+
+        Json json = new Json(OutputType.json);
+        json.setUsePrototypes(false);
+
+        int failures = 0;
+        for (FileHandle file : files)
+        {
+            PerfScenario scenario = PerfScenario.load(file);
+            scenario.durationSeconds *= durationScale;
+            System.out.println("running " + scenario.name + " (" + scenario.durationSeconds + " s simulated)");
+
+            Report report = run(scenario);
+            print(report);
+
+            Gdx.files.local("perf/reports/" + scenario.name + ".json").writeString( json.prettyPrint(report), false );
+
+            FileHandle baselineFile = Gdx.files.local("perf/baselines/" + scenario.name + ".json");
+            if (updateBaseline)
+            {
+                baselineFile.writeString( json.prettyPrint(report), false );
+                System.out.println("  baseline updated");
+            }
+            else if ( baselineFile.exists() )
+            {
+                Array<String> problems = compare( report, json.fromJson(Report.class, baselineFile), scenario );
+                for (String problem : problems)
+                    System.out.println("  FAIL: " + problem);
+                if (problems.size == 0)
+                    System.out.println("  within baseline");
+                else
+                    failures++;
+            }
+            else if (allowMissingBaseline)
+                System.out.println("  no baseline (record one with --update-baseline)");
+            else
+            {
+                // a scenario that is never compared would pass whatever it measures
+                System.out.println("  FAIL: no baseline (record one with --update-baseline, or pass --allow-missing-baseline)");
+                failures++;
+            }
+        }
+
+        BaseGame.assets.dispose();
+        System.out.println(failures == 0 ? "all scenarios passed" : failures + " scenario(s) failed");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     *  Runs one scenario on a new LevelScreen.
+     *  @return measured figures
+     */
+    public static Report run(PerfScenario scenario)
+    {
+        LevelScreen screen = new LevelScreen();
+        screen.show();
+        screen.resize(BaseGame.VIEW_WIDTH, BaseGame.VIEW_HEIGHT);
+        scenario.start(screen);
+
+        int warmupTicks = Math.round(scenario.warmupSeconds / BaseScreen.TIME_STEP);
+        int ticks = Math.max( 1, Math.round(scenario.durationSeconds / BaseScreen.TIME_STEP) );
+
+        for (int i = 0; i < warmupTicks; i++)
+        {
+            scenario.beforeTick(screen, i);
+            screen.commands.drain();
+            screen.tick(Long.MAX_VALUE);
+            if (scenario.draw)
+                screen.draw();
+        }
+
+        // measurements start from a collected heap
+        System.gc();
+        Array<MemoryPoolMXBean> heapPools = new Array<MemoryPoolMXBean>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if (pool.getType() == MemoryType.HEAP)
+            {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        long gcCountStart = getGcCount();
+        long gcTimeStart = getGcTime();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocation = null;
+        if (threads instanceof com.sun.management.ThreadMXBean)
+            allocation = (com.sun.management.ThreadMXBean)threads;
+        long threadId = Thread.currentThread().getId();
+        long allocated = 0;
+
+        SpriteStage world = (SpriteStage)screen.mainStage;
+        long renderCalls = 0;
+        long textureSwitches = 0;
+        int maxRenderCalls = 0;
+        int maxTextureSwitches = 0;
+
+        long[] times = new long[ticks];
+        long wallStart = System.nanoTime();
+        for (int i = 0; i < ticks; i++)
+        {
+            scenario.beforeTick(screen, warmupTicks + i);
+
+            long allocatedBefore = (allocation != null) ? allocation.getThreadAllocatedBytes(threadId) : 0;
+            long start = System.nanoTime();
+
+            // one tick per frame: commands from background threads are run as BaseScreen.render would
+            screen.commands.drain();
+            screen.tick(Long.MAX_VALUE);
+            if (scenario.draw)
+                screen.draw();
+
+            times[i] = System.nanoTime() - start;
+            if (allocation != null)
+                allocated += allocation.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            if (scenario.draw)
+            {
+                renderCalls += world.getRenderCalls();
+                textureSwitches += world.getTextureSwitches();
+                maxRenderCalls = Math.max( maxRenderCalls, world.getRenderCalls() );
+                maxTextureSwitches = Math.max( maxTextureSwitches, world.getTextureSwitches() );
+            }
+        }
+        long wallTime = System.nanoTime() - wallStart;
+
+        Report report = new Report();
+        report.scenario = scenario.name;
+        report.ticks = ticks;
+        report.simulatedSeconds = ticks * BaseScreen.TIME_STEP;
+        report.wallSeconds = wallTime / 1e9f;
+        report.javaVersion = System.getProperty("java.version");
+        report.actorsAtEnd = screen.mainStage.getActors().size;
+
+        long total = 0;
+        report.histogramLimitsMillis = HISTOGRAM_LIMITS;
+        report.histogramCounts = new int[HISTOGRAM_LIMITS.length + 1];
+        for (long time : times)
+        {
+            total += time;
+            float millis = time / 1e6f;
+            int bucket = 0;
+            while (bucket < HISTOGRAM_LIMITS.length && millis > HISTOGRAM_LIMITS[bucket])
+                bucket++;
+            report.histogramCounts[bucket]++;
+        }
+        report.meanMillis = total / 1e6f / ticks;
+
+        Arrays.sort(times);
+        report.p50Millis = percentile(times, 0.50f);
+        report.p95Millis = percentile(times, 0.95f);
+        report.p99Millis = percentile(times, 0.99f);
+        report.maxMillis = times[ticks - 1] / 1e6f;
+
+        if (allocation != null)
+        {
+            report.allocatedBytesPerTick = (float)allocated / ticks;
+            report.allocatedMBPerSecond = report.allocatedBytesPerTick / BaseScreen.TIME_STEP / (1024 * 1024);
+        }
+        else
+        {
+            report.allocatedBytesPerTick = -1;
+            report.allocatedMBPerSecond = -1;
+        }
+
+        report.meanRenderCalls = (float)renderCalls / ticks;
+        report.maxRenderCalls = maxRenderCalls;
+        report.meanTextureSwitches = (float)textureSwitches / ticks;
+        report.maxTextureSwitches = maxTextureSwitches;
+
+        long heapPeak = 0;
+        for (MemoryPoolMXBean pool : heapPools)
+            heapPeak += pool.getPeakUsage().getUsed();
+        report.heapHighWaterMB = heapPeak / (1024f * 1024f);
+        report.gcCount = (int)(getGcCount() - gcCountStart);
+        report.gcMillis = getGcTime() - gcTimeStart;
+
+        screen.hide();
+        screen.dispose();
+        return report;
+    }
+
+    /**
+     *  Compares a run with its baseline.
+     *  @return one message per figure beyond the scenario's allowed ratio (empty if none)
+     */
+    public static Array<String> compare(Report report, Report baseline, PerfScenario scenario)
+    {
+        Array<String> problems = new Array<String>();
+        check(problems, "mean tick time (ms)", report.meanMillis, baseline.meanMillis, scenario.maxMeanRatio, TIME_SLACK_MILLIS);
+        check(problems, "95th percentile tick time (ms)", report.p95Millis, baseline.p95Millis, scenario.maxP95Ratio, TIME_SLACK_MILLIS);
+        check(problems, "99th percentile tick time (ms)", report.p99Millis, baseline.p99Millis, scenario.maxP99Ratio, TIME_SLACK_MILLIS);
+        if (report.allocatedBytesPerTick >= 0 && baseline.allocatedBytesPerTick >= 0)
+            check(problems, "bytes allocated per tick", report.allocatedBytesPerTick, baseline.allocatedBytesPerTick,
+                scenario.maxAllocationRatio, ALLOCATION_SLACK_BYTES);
+        check(problems, "heap high-water mark (MB)", report.heapHighWaterMB, baseline.heapHighWaterMB, scenario.maxHeapRatio, HEAP_SLACK_MB);
+        return problems;
+    }
+
+    private static void check(Array<String> problems, String figure, float value, float baseline, float maxRatio, float slack)
+    {
+        if (value > baseline * maxRatio + slack)
+            problems.add( figure + ": " + value + " exceeds " + maxRatio + " x baseline " + baseline );
+    }
+
+    private static float percentile(long[] sortedTimes, float fraction)
+    {
+        int index = Math.min( sortedTimes.length - 1, (int)(fraction * sortedTimes.length) );
+        return sortedTimes[index] / 1e6f;
+    }
+
+    private static long getGcCount()
+    {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(0, gc.getCollectionCount());
+        return count;
+    }
+
+    private static long getGcTime()
+    {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            time += Math.max(0, gc.getCollectionTime());
+        return time;
+    }
+
+    private static void print(Report report)
+    {
+        System.out.println( "  ticks " + report.ticks + " in " + report.wallSeconds + " s"
+            + "; tick ms mean " + report.meanMillis + " p50 " + report.p50Millis + " p95 " + report.p95Millis
+            + " p99 " + report.p99Millis + " max " + report.maxMillis );
+        System.out.println( "  allocated " + report.allocatedBytesPerTick + " bytes/tick (" + report.allocatedMBPerSecond + " MB/s)"
+            + "; heap peak " + report.heapHighWaterMB + " MB; gc " + report.gcCount + " (" + report.gcMillis + " ms)"
+            + "; actors " + report.actorsAtEnd );
+        System.out.println( "  draw calls/frame mean " + report.meanRenderCalls + " max " + report.maxRenderCalls
+            + "; texture switches/frame mean " + report.meanTextureSwitches + " max " + report.maxTextureSwitches );
+    }
+}
@@ -0,0 +1,128 @@
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.SnapshotArray;
+
+/**
+ * Scripted load for a performance run of LevelScreen (see {@link PerfRunner}),
+ * read from a JSON file such as <code>perf/scenarios/swarm-2000.json</code>.
+ * Fields missing from the file keep the defaults below.
+ * <br>
+ * The script acts only through the level's own entry points (spawnEnemy, the projectile system,
+ * the input buffer), so the measured ticks run the same code as the game.
+ */
+public class PerfScenario
+{
+    public String name = "unnamed";
+    // simulated time measured (seconds)
+    public float durationSeconds = 60;
+    // simulated time run before measuring, so that the JIT compiler has settled (seconds)
+    public float warmupSeconds = 5;
+    // enemy subs kept in the level: replaced as they are destroyed or reach the core
+    public int enemies = 0;
+    // bullets fired every tick, in a rotating fan around the submarine
+    public int bulletsPerTick = 0;
+    // steer the submarine and tap fire through the input buffer, as a player would
+    public boolean steer = false;
+    // draw every tick (render queue sorting and sprite batching run; OpenGL calls are stand-ins)
+    public boolean draw = true;
+    // seed for the script and for MathUtils.random, so runs are repeatable
+    public long seed = 1;
+
+    // largest allowed ratio of this run to the baseline, per figure, before the run fails
+    public float maxMeanRatio = 1.2f;
+    public float maxP95Ratio = 1.25f;
+    public float maxP99Ratio = 1.5f;
+    public float maxAllocationRatio = 1.25f;
+    public float maxHeapRatio = 1.25f;
+
+    private transient RandomXS128 random;
+    private transient float fanAngle;
+    private transient int heldKey;
+
+    /**
+     *  Reads a scenario file.
+     */
+    public static PerfScenario load(FileHandle file)
+    {
+        return new Json().fromJson(PerfScenario.class, file);
+    }
+
+    /**
+     *  Prepares a new level for this scenario: seeds random numbers, keeps the core from being destroyed
+     *  (so the run never ends in game over), and adds the initial enemies.
+     */
+    public void start(LevelScreen screen)
+    {
+        random = new RandomXS128(seed);
+        MathUtils.random.setSeed(seed);
+        fanAngle = 0;
+        heldKey = 0;
+
+        screen.coreHealth = Integer.MAX_VALUE / 2;
+        addEnemies(screen, enemies);
+    }
+
+    /**
+     *  Applies the script before a tick.
+     *  @param tick number of ticks since start
+     */
+    public void beforeTick(LevelScreen screen, int tick)
+    {
+        addEnemies( screen, enemies - countEnemies(screen) );
+
+        if (bulletsPerTick > 0)
+        {
+            Submarine sub = screen.submarine;
+            float x = sub.getX() + sub.getOriginX();
+            float y = sub.getY() + sub.getOriginY();
+            for (int i = 0; i < bulletsPerTick; i++)
+                screen.projectiles.fire( x, y, fanAngle + i * 360f / bulletsPerTick, 600, 2 );
+            fanAngle = (fanAngle + 7) % 360;
+        }
+
+        if (steer)
+        {
+            // change direction every 1.5 seconds: right, up, left, down
+            if (tick % 90 == 0)
+            {
+                int[] keys = { Keys.RIGHT, Keys.UP, Keys.LEFT, Keys.DOWN };
+                if (heldKey != 0)
+                    screen.input.keyUp(heldKey);
+                heldKey = keys[ (tick / 90) % keys.length ];
+                screen.input.keyDown(heldKey);
+            }
+            // tap fire twice a second
+            if (tick % 30 == 0)
+                screen.input.keyDown(Keys.SPACE);
+            else if (tick % 30 == 1)
+                screen.input.keyUp(Keys.SPACE);
+        }
+    }
+
+    private int countEnemies(LevelScreen screen)
+    {
+        int count = 0;
+        SnapshotArray<Actor> actors = screen.mainStage.getRoot().getChildren();
+        for (int i = 0; i < actors.size; i++)
+        {
+            if (actors.get(i) instanceof EnemySub)
+                count++;
+        }
+        return count;
+    }
+
+    // new enemies appear in the far part of the level, between the top and bottom walls
+    private void addEnemies(LevelScreen screen, int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            float x = screen.worldWidth * (0.4f + 0.55f * random.nextFloat());
+            float y = 120 + 520 * random.nextFloat();
+            screen.spawnEnemy(x, y);
+        }
+    }
+}
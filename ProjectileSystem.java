@@ -0,0 +1,189 @@
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+
+/**
+ * Manages every bullet in the level as one actor.
+ * Bullet data is stored in flat arrays (no object per bullet),
+ * all bullets are drawn together with a single texture,
+ * and hits are found by ray casting each bullet's path against a {@link SpatialGrid}.
+ */
+public class ProjectileSystem extends Actor
+{
+    /**
+     * Receives bullet hits; decides whether the bullet is used up.
+     */
+    public interface HitListener
+    {
+        /**
+         *  Called when a bullet's path this frame crosses an actor.
+         *  @param target actor that was hit
+         *  @param x x-coordinate of bullet at the start of this frame
+         *  @param y y-coordinate of bullet at the start of this frame
+         *  @return true to remove the bullet, false to let it continue
+         */
+        public boolean onHit(BaseActor target, float x, float y);
+    }
+
+    private TextureRegion region;
+    private float halfWidth;
+    private float halfHeight;
+
+    // bullet data: entries [0, count) are live
+    private float[] x;
+    private float[] y;
+    private float[] velocityX;
+    private float[] velocityY;
+    private float[] rotation;
+    private float[] timeLeft;
+    private int count;
+
+    private float worldWidth;
+    private float worldHeight;
+
+    public HitListener hitListener;
+
+    /**
+     *  Creates an empty projectile system and adds it to the stage.
+     *  @param fileName image used for every bullet
+     *  @param capacity maximum number of live bullets; extra shots are ignored
+     *  @param worldWidth bullets leaving the world are removed
+     *  @param worldHeight bullets leaving the world are removed
+     *  @param s stage that draws the bullets
+     */
+    public ProjectileSystem(String fileName, int capacity, float worldWidth, float worldHeight, Stage s)
+    {
+        super();
+        s.addActor(this);
+        if (s instanceof SpriteStage)
+            ((SpriteStage)s).setLayer(this, SpriteStage.EFFECT_LAYER);
+
+        region = new Animator(fileName).getKeyFrame();
+        halfWidth = region.getRegionWidth() / 2f;
+        halfHeight = region.getRegionHeight() / 2f;
+
+        x = new float[capacity];
+        y = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        rotation = new float[capacity];
+        timeLeft = new float[capacity];
+        count = 0;
+
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+    }
+
+    /**
+     *  Launches a bullet.
+     *  @param startX x-coordinate of bullet center
+     *  @param startY y-coordinate of bullet center
+     *  @param angle direction of travel (degrees)
+     *  @param speed pixels per second
+     *  @param lifetime seconds before the bullet disappears
+     *  @return false if the system is full and the bullet was not created
+     */
+    public boolean fire(float startX, float startY, float angle, float speed, float lifetime)
+    {
+        if (count == x.length)
+            return false;
+
+        x[count] = startX;
+        y[count] = startY;
+        velocityX[count] = speed * MathUtils.cosDeg(angle);
+        velocityY[count] = speed * MathUtils.sinDeg(angle);
+        rotation[count] = angle;
+        timeLeft[count] = lifetime;
+        count++;
+        return true;
+    }
+
+    /**
+     *  Moves every bullet and resolves hits.
+     *  @param dt elapsed time (seconds)
+     *  @param grid broad phase containing the actors that bullets can hit
+     */
+    public void update(float dt, SpatialGrid grid)
+    {
+        int i = 0;
+        while (i < count)
+        {
+            float oldX = x[i];
+            float oldY = y[i];
+            float newX = oldX + velocityX[i] * dt;
+            float newY = oldY + velocityY[i] * dt;
+            timeLeft[i] -= dt;
+
+            boolean alive = ( timeLeft[i] > 0
+                && newX >= 0 && newX <= worldWidth
+                && newY >= 0 && newY <= worldHeight );
+
+            BaseActor target = grid.raycast(oldX, oldY, newX, newY);
+            if ( target != null && hitListener != null && hitListener.onHit(target, oldX, oldY) )
+                alive = false;
+
+            if (alive)
+            {
+                x[i] = newX;
+                y[i] = newY;
+                i++;
+            }
+            else
+            {
+                // overwrite with last bullet; do not advance so it is processed next
+                remove(i);
+            }
+        }
+    }
+
+    private void remove(int i)
+    {
+        count--;
+        x[i] = x[count];
+        y[i] = y[count];
+        velocityX[i] = velocityX[count];
+        velocityY[i] = velocityY[count];
+        rotation[i] = rotation[count];
+        timeLeft[i] = timeLeft[count];
+    }
+
+    /**
+     *  Removes all bullets.
+     */
+    public void clearProjectiles()
+    {
+        count = 0;
+    }
+
+    /**
+     *  @return number of live bullets
+     */
+    public int getCount()
+    {
+        return count;
+    }
+
+    /**
+     *  Draws every bullet with the same texture, so the batch never flushes between them.
+     */
+    public void draw(Batch batch, float parentAlpha)
+    {
+        Color c = getColor();
+        batch.setColor(c.r, c.g, c.b, c.a * parentAlpha);
+
+        float w = halfWidth * 2;
+        float h = halfHeight * 2;
+        for (int i = 0; i < count; i++)
+        {
+            batch.draw( region,
+                x[i] - halfWidth, y[i] - halfHeight,
+                halfWidth, halfHeight,
+                w, h,
+                1, 1,
+                rotation[i] );
+        }
+    }
+}
@@ -0,0 +1,192 @@
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Watches recent frame times and lowers quality when the game cannot keep up,
+ * then raises it again when there is headroom.
+ * Each quality level sets: effect density (fraction of explosions spawned),
+ * AI decision interval, texture filtering, and render scale.
+ * <br>
+ * Hysteresis: quality drops when average frame time is over budget, and never rises while it is;
+ * it only rises when frame time is within budget and average work time (time spent in render,
+ * excluding vsync and GPU waits) is well under budget. Either change requires a full window of samples
+ * since the last change, so a game limited by the GPU settles at the level that keeps up instead of
+ * alternating between two levels.
+ * <br>
+ * The budget is one frame at the display's refresh rate, but no shorter than one frame at 60 Hz
+ * (see {@link #setRefreshRate}).
+ */
+public class QualityGovernor
+{
+    // settings for each level, from full quality (0) to lowest
+    private static final float[]   EFFECT_DENSITY = { 1,    0.5f,    0.5f,   0.25f };
+    private static final float[]   AI_INTERVAL    = { 0,    1/20f,   1/10f,  1/5f  };
+    private static final boolean[] LINEAR_FILTER  = { true, true,    false,  false };
+    private static final float[]   RENDER_SCALE   = { 1,    1,       0.75f,  0.5f  };
+
+    public static final int LEVEL_COUNT = EFFECT_DENSITY.length;
+
+    // frame time budget (seconds)
+    public float targetFrameTime;
+    // average frame time above (budget * this) lowers quality
+    public float degradeRatio;
+    // average work time below (budget * this) raises quality...
+    public float restoreRatio;
+    // ...if average frame time is also below (budget * this); above 1 to allow for vsync timing jitter
+    public float restoreFrameRatio;
+    // frames needed after a change before the next restore (degrades need one window)
+    public int restoreHoldFrames;
+
+    private float[] frameTimes;
+    private float[] workTimes;
+    private int sampleIndex;
+    private int sampleCount;
+    private float frameTimeSum;
+    private float workTimeSum;
+
+    private int level;
+    private int framesSinceChange;
+
+    // textures whose filter is switched; reused to avoid allocation
+    private Array<Texture> textures;
+
+    /**
+     *  Creates a governor for 60 frames per second, starting at full quality.
+     */
+    public QualityGovernor()
+    {
+        targetFrameTime = 1 / 60f;
+        degradeRatio = 1.15f;
+        restoreRatio = 0.6f;
+        restoreFrameRatio = 1.05f;
+        restoreHoldFrames = 180;
+
+        frameTimes = new float[60];
+        workTimes = new float[60];
+        level = 0;
+        textures = new Array<Texture>();
+    }
+
+    /**
+     *  Sets the frame time budget for a display: one frame at its refresh rate,
+     *  but no shorter than one frame at 60 Hz (faster displays do not raise the bar).
+     *  @param hertz display refresh rate; 0 or less (unknown) keeps the current budget
+     */
+    public void setRefreshRate(int hertz)
+    {
+        if (hertz > 0)
+            targetFrameTime = 1f / Math.min(hertz, 60);
+    }
+
+    /**
+     *  Records one frame; changes quality level if needed.
+     *  @param frameTime total time since previous frame (seconds)
+     *  @param workTime time spent updating and drawing this frame (seconds)
+     */
+    public void recordFrame(float frameTime, float workTime)
+    {
+        // rolling window: replace oldest sample
+        if (sampleCount == frameTimes.length)
+        {
+            frameTimeSum -= frameTimes[sampleIndex];
+            workTimeSum -= workTimes[sampleIndex];
+        }
+        else
+            sampleCount++;
+
+        frameTimes[sampleIndex] = frameTime;
+        workTimes[sampleIndex] = workTime;
+        frameTimeSum += frameTime;
+        workTimeSum += workTime;
+        sampleIndex = (sampleIndex + 1) % frameTimes.length;
+        framesSinceChange++;
+
+        // wait for a full window of samples taken at the current level
+        if (sampleCount < frameTimes.length)
+            return;
+
+        float averageFrame = frameTimeSum / sampleCount;
+        float averageWork = workTimeSum / sampleCount;
+
+        if (averageFrame > targetFrameTime * degradeRatio)
+        {
+            // over budget: lower quality if possible, never raise it
+            if (level < LEVEL_COUNT - 1)
+                setLevel(level + 1);
+        }
+        else if ( averageWork < targetFrameTime * restoreRatio && averageFrame < targetFrameTime * restoreFrameRatio
+            && level > 0 && framesSinceChange >= restoreHoldFrames )
+            setLevel(level - 1);
+    }
+
+    /**
+     *  Sets quality level directly and applies texture filtering.
+     *  @param newLevel 0 (full quality) to LEVEL_COUNT-1 (lowest)
+     */
+    public void setLevel(int newLevel)
+    {
+        boolean filterChanged = ( LINEAR_FILTER[level] != LINEAR_FILTER[newLevel] );
+        level = newLevel;
+
+        // samples from the old level no longer describe the current cost
+        sampleIndex = 0;
+        sampleCount = 0;
+        frameTimeSum = 0;
+        workTimeSum = 0;
+        framesSinceChange = 0;
+
+        if (filterChanged && BaseGame.assets != null)
+        {
+            TextureFilter filter = getTextureFilter();
+            BaseGame.assets.getAll(Texture.class, textures);
+            for (Texture texture : textures)
+                texture.setFilter(filter, filter);
+            textures.clear();
+        }
+
+        if (Gdx.app != null)
+            Gdx.app.log("QualityGovernor", "quality level " + level);
+    }
+
+    /**
+     *  @return 0 (full quality) to LEVEL_COUNT-1 (lowest)
+     */
+    public int getLevel()
+    {
+        return level;
+    }
+
+    /**
+     *  @return fraction (0 to 1) of optional effects, such as explosions, that should be created
+     */
+    public float getEffectDensity()
+    {
+        return EFFECT_DENSITY[level];
+    }
+
+    /**
+     *  @return minimum time (seconds) between AI decisions; 0 means every frame
+     */
+    public float getAiInterval()
+    {
+        return AI_INTERVAL[level];
+    }
+
+    /**
+     *  @return filter to use for game textures at the current level
+     */
+    public TextureFilter getTextureFilter()
+    {
+        return LINEAR_FILTER[level] ? TextureFilter.Linear : TextureFilter.Nearest;
+    }
+
+    /**
+     *  @return fraction (0 to 1) of full resolution at which the game world should be rendered
+     */
+    public float getRenderScale()
+    {
+        return RENDER_SCALE[level];
+    }
+}
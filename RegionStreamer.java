@@ -0,0 +1,478 @@
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Bits;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncTask;
+
+/**
+ * Loads a level one region at a time, around the camera.
+ * The world is a grid of equal regions; each region's contents are listed in a text file
+ * (<code>region-column-row.txt</code> in the level's folder), one object per line:
+ * <pre>
+ * # type  x  y  [width  height]      (relative to the region's lower-left corner)
+ * wall    0  0  800  100
+ * enemy   600  400
+ * </pre>
+ * Files are read and parsed on a background thread, which hands the results back
+ * through the screen's {@link CommandQueue}. Actors are then created (through a {@link Spawner})
+ * and removed a limited number per update, so a region entering view never stalls a frame.
+ * Regions are loaded when within <code>loadMargin</code> of the camera's view
+ * and unloaded when farther than <code>unloadMargin</code>; only nearby regions hold actors,
+ * so the number of actors does not depend on the length of the level.
+ * <br>
+ * Objects removed by the game (enemies destroyed, items collected) are remembered per region
+ * and not created again when the region is reloaded.
+ * <br>
+ * Data needed across the whole level, whatever is loaded (such as the wall layout for path finding),
+ * is read from the same files by {@link LevelLayout}. When such a layout is already loaded, set {@link #layout}:
+ * regions are then taken from it instead of being read again, and are ready without waiting.
+ */
+public class RegionStreamer implements Disposable
+{
+    /**
+     * Creates and releases the actors described by region files.
+     */
+    public interface Spawner
+    {
+        /**
+         *  Creates an actor for one line of a region file.
+         *  @param type first word of the line
+         *  @param x world position
+         *  @param y world position
+         *  @param width size from the line, or 0 if not given
+         *  @param height size from the line, or 0 if not given
+         *  @return actor created (already on the stage), or null to ignore the line
+         */
+        BaseActor spawn(String type, float x, float y, float width, float height);
+
+        /**
+         *  Called just before a streamed actor is removed from the stage by unloading.
+         */
+        void despawn(BaseActor actor);
+    }
+
+    /**
+     * One object parsed from a region file (world coordinates).
+     */
+    public static class Placement
+    {
+        public String type;
+        public float x;
+        public float y;
+        public float width;
+        public float height;
+    }
+
+    private static class Region
+    {
+        int column;
+        int row;
+        // true while the file is being parsed
+        boolean loading;
+        // number of load requests; results of superseded requests are ignored
+        int loadCount;
+        // null unless loaded
+        Array<Placement> placements;
+        // next placement to create
+        int nextPlacement;
+        // actors created from this region and the placement each came from
+        Array<BaseActor> actors = new Array<BaseActor>(false, 16);
+        IntArray actorPlacements = new IntArray(false, 16);
+        // placements whose actor was removed by the game
+        Bits consumed = new Bits();
+    }
+
+    public final int columns;
+    public final int rows;
+    public final float regionWidth;
+    public final float regionHeight;
+
+    // distance beyond the camera's view at which regions are loaded
+    public float loadMargin;
+    // distance beyond the camera's view at which regions are unloaded (larger, so regions do not flicker)
+    public float unloadMargin;
+    // actors created or removed per update, at most
+    public int actionsPerUpdate;
+    // parsed contents of every region, or null to read region files in the background
+    public LevelLayout layout;
+
+    private String folder;
+    private Spawner spawner;
+    private AsyncExecutor executor;
+    // receives parsed regions from the background thread
+    private CommandQueue commands;
+    // tells the background thread to stop waiting for space in the command queue
+    private volatile boolean disposed;
+
+    // created when first needed; indexed by row * columns + column
+    private Region[] regions;
+    // regions loading or loaded
+    private Array<Region> active;
+    // actors of unloaded regions, waiting to be removed
+    private Array<BaseActor> removals;
+
+    // camera view from the last update, extended by the margins
+    private float loadLeft, loadRight, loadBottom, loadTop;
+    private float keepLeft, keepRight, keepBottom, keepTop;
+
+    /**
+     *  @param folder folder containing the level's region files (missing files are empty regions)
+     *  @param columns number of regions across
+     *  @param rows number of regions up
+     *  @param regionWidth width of each region (world units)
+     *  @param regionHeight height of each region (world units)
+     *  @param spawner creates actors for region contents
+     *  @param commands queue drained on the render thread (usually the screen's)
+     */
+    public RegionStreamer(String folder, int columns, int rows, float regionWidth, float regionHeight,
+        Spawner spawner, CommandQueue commands)
+    {
+        this.folder = folder;
+        this.columns = columns;
+        this.rows = rows;
+        this.regionWidth = regionWidth;
+        this.regionHeight = regionHeight;
+        this.spawner = spawner;
+        this.commands = commands;
+
+        loadMargin = Math.min(regionWidth, regionHeight) / 2;
+        unloadMargin = Math.min(regionWidth, regionHeight);
+        actionsPerUpdate = 32;
+
+        // one thread: regions are parsed in the order they are needed
+        executor = new AsyncExecutor(1);
+        regions = new Region[columns * rows];
+        active = new Array<Region>(false, 16);
+        removals = new Array<BaseActor>(false, 64);
+    }
+
+    /**
+     *  @return width of the whole level (world units)
+     */
+    public float getWorldWidth()
+    {
+        return columns * regionWidth;
+    }
+
+    /**
+     *  @return height of the whole level (world units)
+     */
+    public float getWorldHeight()
+    {
+        return rows * regionHeight;
+    }
+
+    /**
+     *  Starts loading regions near the camera, unloads distant ones,
+     *  and creates or removes up to actionsPerUpdate actors.
+     *  @param camera camera whose view determines which regions are needed (already positioned)
+     */
+    public void update(Camera camera)
+    {
+        float zoom = 1;
+        if (camera instanceof OrthographicCamera)
+            zoom = ((OrthographicCamera)camera).zoom;
+        float halfWidth = camera.viewportWidth * zoom / 2;
+        float halfHeight = camera.viewportHeight * zoom / 2;
+
+        loadLeft = camera.position.x - halfWidth - loadMargin;
+        loadRight = camera.position.x + halfWidth + loadMargin;
+        loadBottom = camera.position.y - halfHeight - loadMargin;
+        loadTop = camera.position.y + halfHeight + loadMargin;
+        keepLeft = camera.position.x - halfWidth - unloadMargin;
+        keepRight = camera.position.x + halfWidth + unloadMargin;
+        keepBottom = camera.position.y - halfHeight - unloadMargin;
+        keepTop = camera.position.y + halfHeight + unloadMargin;
+
+        // unload first, so that their actors are queued before new ones are created
+        for (int i = active.size - 1; i >= 0; i--)
+        {
+            Region region = active.get(i);
+            if ( !overlaps(region, keepLeft, keepRight, keepBottom, keepTop) )
+            {
+                unload(region);
+                active.removeIndex(i);
+            }
+        }
+
+        // only the regions under the load area are examined
+        int firstColumn = Math.max( 0, (int)Math.floor(loadLeft / regionWidth) );
+        int lastColumn = Math.min( columns - 1, (int)Math.floor(loadRight / regionWidth) );
+        int firstRow = Math.max( 0, (int)Math.floor(loadBottom / regionHeight) );
+        int lastRow = Math.min( rows - 1, (int)Math.floor(loadTop / regionHeight) );
+        for (int row = firstRow; row <= lastRow; row++)
+        {
+            for (int column = firstColumn; column <= lastColumn; column++)
+            {
+                Region region = getRegion(column, row);
+                if (!region.loading && region.placements == null)
+                {
+                    load(region);
+                    active.add(region);
+                }
+            }
+        }
+
+        int budget = actionsPerUpdate;
+
+        // removals first: they free memory and make room for new actors
+        while (budget > 0 && removals.size > 0)
+        {
+            BaseActor actor = removals.pop();
+            if (actor.getStage() != null)
+            {
+                spawner.despawn(actor);
+                actor.remove();
+            }
+            budget--;
+        }
+
+        for (Region region : active)
+            budget = spawn(region, budget);
+    }
+
+    /**
+     *  Loads and creates everything near the camera immediately, ignoring the per-update limit;
+     *  used when a level starts, before anything is shown.
+     *  @param camera camera whose view determines which regions are needed (already positioned)
+     */
+    public void finishLoading(Camera camera)
+    {
+        update(camera);
+        for (Region region : active)
+        {
+            // parsed regions arrive through the command queue, so run it until this one has
+            while (region.loading)
+            {
+                if (commands.drain(Integer.MAX_VALUE, Long.MAX_VALUE) == 0)
+                    Thread.yield();
+            }
+            spawn(region, Integer.MAX_VALUE);
+        }
+        for (BaseActor actor : removals)
+        {
+            if (actor.getStage() != null)
+            {
+                spawner.despawn(actor);
+                actor.remove();
+            }
+        }
+        removals.clear();
+    }
+
+    /**
+     *  @return name of a region's file within the level's folder
+     */
+    public static String getRegionFileName(int column, int row)
+    {
+        return "region-" + column + "-" + row + ".txt";
+    }
+
+    /**
+     *  @return number of regions loading or loaded
+     */
+    public int getActiveRegionCount()
+    {
+        return active.size;
+    }
+
+    private Region getRegion(int column, int row)
+    {
+        int index = row * columns + column;
+        if (regions[index] == null)
+        {
+            Region region = new Region();
+            region.column = column;
+            region.row = row;
+            regions[index] = region;
+        }
+        return regions[index];
+    }
+
+    private boolean overlaps(Region region, float left, float right, float bottom, float top)
+    {
+        float x = region.column * regionWidth;
+        float y = region.row * regionHeight;
+        return x < right && x + regionWidth > left && y < top && y + regionHeight > bottom;
+    }
+
+    private void load(final Region region)
+    {
+        if (layout != null)
+        {
+            // placements are only read, so the layout's own arrays are used
+            region.loading = true;
+            receive( region, ++region.loadCount, layout.getRegion(region.column, region.row) );
+            return;
+        }
+
+        final FileHandle file = Gdx.files.internal( folder + "/" + getRegionFileName(region.column, region.row) );
+        final float originX = region.column * regionWidth;
+        final float originY = region.row * regionHeight;
+        final int request = ++region.loadCount;
+        region.loading = true;
+
+        // runs on the executor's thread: only reads the file and creates plain objects
+        executor.submit( new AsyncTask<Void>()
+            {
+                public Void call()
+                {
+                    Runnable handoff;
+                    try
+                    {
+                        final Array<Placement> placements = file.exists()
+                            ? parse( file.readString(), originX, originY, file.path() )
+                            : new Array<Placement>();
+                        handoff = new Runnable()
+                            {
+                                public void run()
+                                {
+                                    receive(region, request, placements);
+                                }
+                            };
+                    }
+                    catch (final RuntimeException error)
+                    {
+                        // reported on the render thread, like any other loading error
+                        handoff = new Runnable()
+                            {
+                                public void run()
+                                {
+                                    throw new GdxRuntimeException("Unable to load " + file.path(), error);
+                                }
+                            };
+                    }
+
+                    while ( !disposed && !commands.post(handoff) )
+                        Thread.yield();
+                    return null;
+                }
+            } );
+    }
+
+    // runs on the render thread, through the command queue
+    private void receive(Region region, int request, Array<Placement> placements)
+    {
+        // region was unloaded (and maybe requested again) while this file was parsed
+        if (!region.loading || request != region.loadCount)
+            return;
+
+        region.placements = placements;
+        region.loading = false;
+        region.nextPlacement = 0;
+    }
+
+    // creates actors for the region's next placements; returns the budget left
+    private int spawn(Region region, int budget)
+    {
+        Array<Placement> placements = region.placements;
+        if (placements == null)
+            return budget;
+
+        while (budget > 0 && region.nextPlacement < placements.size)
+        {
+            int index = region.nextPlacement++;
+            if ( region.consumed.get(index) )
+                continue;
+
+            Placement p = placements.get(index);
+            BaseActor actor = spawner.spawn(p.type, p.x, p.y, p.width, p.height);
+            if (actor != null)
+            {
+                region.actors.add(actor);
+                region.actorPlacements.add(index);
+            }
+            budget--;
+        }
+        return budget;
+    }
+
+    private void unload(Region region)
+    {
+        // a region still being parsed is dropped when its result arrives
+        region.loading = false;
+        region.placements = null;
+        region.nextPlacement = 0;
+
+        for (int i = 0; i < region.actors.size; i++)
+        {
+            BaseActor actor = region.actors.get(i);
+            int index = region.actorPlacements.get(i);
+
+            if (actor.getStage() == null)
+            {
+                // removed by the game: stays gone
+                region.consumed.set(index);
+            }
+            else if ( actor.getX() < keepRight && actor.getX() + actor.getWidth() > keepLeft
+                && actor.getY() < keepTop && actor.getY() + actor.getHeight() > keepBottom )
+            {
+                // moved close to the camera (such as an enemy chasing the player): left alone, and not created again
+                region.consumed.set(index);
+            }
+            else
+                removals.add(actor);
+        }
+        region.actors.clear();
+        region.actorPlacements.clear();
+    }
+
+    /**
+     *  Reads region file contents.
+     *  @param text contents of a region file
+     *  @param originX position of the region's lower-left corner (world units)
+     *  @param originY position of the region's lower-left corner (world units)
+     *  @param name file name, for error messages
+     *  @return placements in world coordinates, in file order
+     */
+    public static Array<Placement> parse(String text, float originX, float originY, String name)
+    {
+        Array<Placement> placements = new Array<Placement>();
+        String[] lines = text.split("\n");
+        for (int i = 0; i < lines.length; i++)
+        {
+            String line = lines[i].trim();
+            if (line.length() == 0 || line.startsWith("#"))
+                continue;
+
+            String[] words = line.split("\\s+");
+            if (words.length != 3 && words.length != 5)
+                throw new GdxRuntimeException(name + " line " + (i + 1) + ": expected type x y [width height]");
+
+            Placement p = new Placement();
+            try
+            {
+                p.type = words[0];
+                p.x = originX + Float.parseFloat(words[1]);
+                p.y = originY + Float.parseFloat(words[2]);
+                if (words.length == 5)
+                {
+                    p.width = Float.parseFloat(words[3]);
+                    p.height = Float.parseFloat(words[4]);
+                }
+            }
+            catch (NumberFormatException error)
+            {
+                throw new GdxRuntimeException(name + " line " + (i + 1) + ": " + error.getMessage(), error);
+            }
+            placements.add(p);
+        }
+        return placements;
+    }
+
+    /**
+     *  Stops the background thread (waiting for any file being parsed).
+     *  Actors are left on the stage, which is disposed with its screen.
+     */
+    public void dispose()
+    {
+        disposed = true;
+        executor.dispose();
+    }
+}
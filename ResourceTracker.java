@@ -0,0 +1,549 @@
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.audio.Music;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Counts the resources the game is holding: textures (with estimated GPU memory),
+ * fonts, sounds, music, live BaseActors by class, and Java heap in use;
+ * also the sprite batch flushes of the game world per frame (see {@link #recordDraw}).
+ * <br>
+ * Actors and screens are tracked through weak references, so tracking never keeps them alive.
+ * An actor or screen still reachable some time after its screen was disposed is reported as a leak.
+ * <br>
+ * Figures are sampled once per second (see {@link #update}), written to the log periodically,
+ * and summarized in {@link #getSummary} for a debug overlay.
+ * Optional budgets mark the game as over budget (see {@link #isOverBudget}); BaseGame decides what to do about it.
+ */
+public class ResourceTracker
+{
+    /**
+     * Screen that actors are attributed to, through the stages it owns.
+     */
+    private static class ScreenRecord extends WeakReference<BaseScreen>
+    {
+        String name;
+        WeakReference<Stage> mainStage;
+        WeakReference<Stage> uiStage;
+        boolean disposed;
+        long disposedTime;
+        boolean reported;
+
+        ScreenRecord(BaseScreen screen, Stage main, Stage ui)
+        {
+            super(screen);
+            name = screen.getClass().getSimpleName();
+            mainStage = new WeakReference<Stage>(main);
+            uiStage = new WeakReference<Stage>(ui);
+        }
+    }
+
+    /**
+     * One live actor and the screen it was created for (null if unknown).
+     */
+    private static class ActorRecord extends WeakReference<BaseActor>
+    {
+        Class<?> type;
+        ScreenRecord screen;
+        boolean reported;
+
+        ActorRecord(BaseActor actor, ScreenRecord screen)
+        {
+            super(actor);
+            type = actor.getClass();
+            this.screen = screen;
+        }
+    }
+
+    // false stops tracking new objects (existing records are still sampled)
+    public boolean enabled;
+    // seconds between samples
+    public float sampleInterval;
+    // seconds between log entries; 0 for no periodic log
+    public float logInterval;
+    // seconds after a screen is disposed before its remaining actors count as leaked
+    public float leakGraceTime;
+    // estimated texture memory allowed (bytes); 0 for no limit
+    //  (shared textures are kept until exit, so BaseGame can only enforce this by exiting)
+    public long textureBudget;
+    // Java heap in use allowed (bytes); 0 for no limit
+    public long heapBudget;
+
+    private Array<ScreenRecord> screens;
+    private Array<ActorRecord> actors;
+    // textures not managed by BaseGame.assets (framebuffers, fonts, textures created without a game)
+    private ObjectSet<Texture> textures;
+    private Array<BitmapFont> fonts;
+
+    // reused while sampling, to avoid allocation
+    private ObjectSet<Texture> textureScan;
+    private Array<Texture> assetTextures;
+    private Array<Sound> assetSounds;
+    private Array<Music> assetMusic;
+
+    private float sampleTimer;
+    private float logTimer;
+
+    // figures from the last sample
+    private int textureCount;
+    private long textureBytes;
+    private int fontCount;
+    private int soundCount;
+    private int musicCount;
+    private int actorCount;
+    private ObjectIntMap<Class<?>> actorCounts;
+    private int leakedActorCount;
+    private int leakedScreenCount;
+    private long heapUsed;
+    private long heapHighWater;
+    private boolean overBudget;
+    private int overBudgetSamples;
+
+    // batch flushes and texture switches: last frame drawn, and most in one frame since the last sample
+    private int renderCalls;
+    private int textureSwitches;
+    private int peakRenderCalls;
+    private int peakTextureSwitches;
+    private int samplePeakRenderCalls;
+    private int samplePeakTextureSwitches;
+
+    private StringBuilder summary;
+
+    public ResourceTracker()
+    {
+        enabled = true;
+        sampleInterval = 1;
+        logInterval = 60;
+        leakGraceTime = 10;
+        textureBudget = 0;
+        heapBudget = 0;
+
+        screens = new Array<ScreenRecord>(false, 8);
+        actors = new Array<ActorRecord>(false, 256);
+        textures = new ObjectSet<Texture>();
+        fonts = new Array<BitmapFont>();
+
+        textureScan = new ObjectSet<Texture>();
+        assetTextures = new Array<Texture>();
+        assetSounds = new Array<Sound>();
+        assetMusic = new Array<Music>();
+        actorCounts = new ObjectIntMap<Class<?>>();
+        summary = new StringBuilder();
+    }
+
+    /**
+     *  Registers a screen, so that actors added to its stages are attributed to it.
+     *  Called by BaseScreen before it creates any actors.
+     */
+    public void trackScreen(BaseScreen screen, Stage mainStage, Stage uiStage)
+    {
+        if (enabled)
+            screens.add( new ScreenRecord(screen, mainStage, uiStage) );
+    }
+
+    /**
+     *  Records that a screen has been disposed; it and its actors should be garbage from now on.
+     */
+    public void screenDisposed(BaseScreen screen)
+    {
+        for (ScreenRecord record : screens)
+        {
+            if (record.get() == screen)
+            {
+                record.disposed = true;
+                record.disposedTime = TimeUtils.millis();
+            }
+        }
+    }
+
+    /**
+     *  Registers a new actor. Called by the BaseActor constructor.
+     *  @param actor actor being created
+     *  @param stage stage it was added to, used to find its screen
+     */
+    public void trackActor(BaseActor actor, Stage stage)
+    {
+        if (!enabled)
+            return;
+
+        ScreenRecord owner = null;
+        for (ScreenRecord record : screens)
+        {
+            if (record.mainStage.get() == stage || record.uiStage.get() == stage)
+                owner = record;
+        }
+        actors.add( new ActorRecord(actor, owner) );
+    }
+
+    /**
+     *  Registers a texture that is not loaded through BaseGame.assets;
+     *  it is counted until it is disposed.
+     */
+    public void trackTexture(Texture texture)
+    {
+        if (enabled)
+            textures.add(texture);
+    }
+
+    /**
+     *  Registers a font; it (and its page textures) is counted until disposed.
+     */
+    public void trackFont(BitmapFont font)
+    {
+        if (enabled)
+            fonts.add(font);
+    }
+
+    /**
+     *  Records the batch flushes of a frame's game world. Called by BaseGame after each frame.
+     *  @param stage stage that drew the game world
+     */
+    public void recordDraw(SpriteStage stage)
+    {
+        renderCalls = stage.getRenderCalls();
+        textureSwitches = stage.getTextureSwitches();
+        samplePeakRenderCalls = Math.max(samplePeakRenderCalls, renderCalls);
+        samplePeakTextureSwitches = Math.max(samplePeakTextureSwitches, textureSwitches);
+    }
+
+    /**
+     *  Advances the sample and log timers.
+     *  @param dt elapsed time (seconds) since last call
+     *  @return true if a new sample was taken
+     */
+    public boolean update(float dt)
+    {
+        sampleTimer += dt;
+        if (sampleTimer < sampleInterval)
+            return false;
+        sampleTimer = 0;
+
+        sample();
+
+        if (logInterval > 0)
+        {
+            logTimer += sampleInterval;
+            if (logTimer >= logInterval)
+            {
+                logTimer = 0;
+                log();
+            }
+        }
+        return true;
+    }
+
+    /**
+     *  Recounts every tracked resource now.
+     */
+    public void sample()
+    {
+        long now = TimeUtils.millis();
+
+        // textures: those managed by the asset manager, plus registered ones still alive
+        textureScan.clear();
+        AssetManager assets = BaseGame.assets;
+        soundCount = 0;
+        musicCount = 0;
+        if (assets != null)
+        {
+            assets.getAll(Texture.class, assetTextures);
+            for (Texture texture : assetTextures)
+                textureScan.add(texture);
+            assetTextures.clear();
+
+            assets.getAll(Sound.class, assetSounds);
+            soundCount = assetSounds.size;
+            assetSounds.clear();
+            assets.getAll(Music.class, assetMusic);
+            musicCount = assetMusic.size;
+            assetMusic.clear();
+        }
+
+        ObjectSet.ObjectSetIterator<Texture> iterator = textures.iterator();
+        while (iterator.hasNext)
+        {
+            Texture texture = iterator.next();
+            if ( isDisposed(texture) )
+                iterator.remove();
+            else
+                textureScan.add(texture);
+        }
+
+        fontCount = 0;
+        for (int i = fonts.size - 1; i >= 0; i--)
+        {
+            BitmapFont font = fonts.get(i);
+            if ( isDisposed(font) )
+            {
+                fonts.removeIndex(i);
+                continue;
+            }
+            fontCount++;
+            for (TextureRegion page : font.getRegions())
+                textureScan.add( page.getTexture() );
+        }
+
+        textureCount = textureScan.size;
+        textureBytes = 0;
+        for (Texture texture : textureScan)
+            textureBytes += getByteSize(texture);
+
+        // actors: drop records of collected actors, count the rest by class
+        actorCounts.clear();
+        actorCount = 0;
+        leakedActorCount = 0;
+        for (int i = actors.size - 1; i >= 0; i--)
+        {
+            ActorRecord record = actors.get(i);
+            if (record.get() == null)
+            {
+                actors.removeIndex(i);
+                continue;
+            }
+            actorCount++;
+            actorCounts.getAndIncrement(record.type, 0, 1);
+
+            if ( isExpired(record.screen, now) )
+            {
+                leakedActorCount++;
+                if (!record.reported)
+                {
+                    record.reported = true;
+                    Gdx.app.error( "ResourceTracker", record.type.getSimpleName()
+                        + " still referenced after " + record.screen.name + " was disposed" );
+                }
+            }
+        }
+
+        leakedScreenCount = 0;
+        for (int i = screens.size - 1; i >= 0; i--)
+        {
+            ScreenRecord record = screens.get(i);
+            if (record.get() == null)
+            {
+                // actor records may still point to it; only the screen list lets go
+                screens.removeIndex(i);
+                continue;
+            }
+            if ( isExpired(record, now) )
+            {
+                leakedScreenCount++;
+                if (!record.reported)
+                {
+                    record.reported = true;
+                    Gdx.app.error( "ResourceTracker", record.name + " still referenced after it was disposed" );
+                }
+            }
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        heapUsed = runtime.totalMemory() - runtime.freeMemory();
+        heapHighWater = Math.max(heapHighWater, heapUsed);
+
+        overBudget = (textureBudget > 0 && textureBytes > textureBudget)
+            || (heapBudget > 0 && heapUsed > heapBudget);
+        if (overBudget)
+            overBudgetSamples++;
+        else
+            overBudgetSamples = 0;
+
+        peakRenderCalls = samplePeakRenderCalls;
+        peakTextureSwitches = samplePeakTextureSwitches;
+        samplePeakRenderCalls = 0;
+        samplePeakTextureSwitches = 0;
+
+        buildSummary();
+    }
+
+    // disposed screen whose grace time has passed
+    private boolean isExpired(ScreenRecord record, long now)
+    {
+        return record != null && record.disposed && now - record.disposedTime > leakGraceTime * 1000;
+    }
+
+    private static boolean isDisposed(Texture texture)
+    {
+        // dispose releases the OpenGL handle
+        return texture.getTextureObjectHandle() == 0;
+    }
+
+    private static boolean isDisposed(BitmapFont font)
+    {
+        Array<TextureRegion> pages = font.getRegions();
+        return pages.size == 0 || isDisposed( pages.first().getTexture() );
+    }
+
+    /**
+     *  Estimates the GPU memory used by a texture from its size and pixel format.
+     *  @return size in bytes (a third more when mipmapped)
+     */
+    public static long getByteSize(Texture texture)
+    {
+        TextureData data = texture.getTextureData();
+        Pixmap.Format format = (data != null) ? data.getFormat() : null;
+
+        long bytes = (long)texture.getWidth() * texture.getHeight() * getBytesPerPixel(format);
+        if (data != null && data.useMipMaps())
+            bytes = bytes * 4 / 3;
+        return bytes;
+    }
+
+    private static int getBytesPerPixel(Pixmap.Format format)
+    {
+        if (format == null)
+            return 4;
+
+        switch (format)
+        {
+            case Alpha:
+            case Intensity:
+                return 1;
+            case LuminanceAlpha:
+            case RGB565:
+            case RGBA4444:
+                return 2;
+            case RGB888:
+                return 3;
+            default:
+                return 4;
+        }
+    }
+
+    private void buildSummary()
+    {
+        summary.setLength(0);
+        summary.append("textures ").append(textureCount)
+            .append(" (").append(textureBytes / 1024).append(" KB)");
+        summary.append("\nfonts ").append(fontCount)
+            .append("  sounds ").append(soundCount)
+            .append("  music ").append(musicCount);
+        summary.append("\nactors ").append(actorCount);
+        for (ObjectIntMap.Entry<Class<?>> entry : actorCounts.entries())
+            summary.append("\n  ").append(entry.key.getSimpleName()).append(' ').append(entry.value);
+        summary.append("\ndraw calls ").append(renderCalls).append(" (peak ").append(peakRenderCalls).append(')')
+            .append("  texture switches ").append(textureSwitches).append(" (peak ").append(peakTextureSwitches).append(')');
+        summary.append("\nheap ").append(heapUsed / (1024 * 1024))
+            .append(" MB (peak ").append(heapHighWater / (1024 * 1024)).append(" MB)");
+        if (leakedActorCount > 0 || leakedScreenCount > 0)
+            summary.append("\nLEAKED: ").append(leakedActorCount).append(" actors, ")
+                .append(leakedScreenCount).append(" screens");
+        if (overBudget)
+            summary.append("\nOVER BUDGET");
+    }
+
+    /**
+     *  Writes the figures from the last sample to the application log.
+     */
+    public void log()
+    {
+        Gdx.app.log( "ResourceTracker", summary.toString().replace('\n', ';') );
+    }
+
+    /**
+     *  @return figures from the last sample, one per line; rebuilt only when sampling
+     */
+    public CharSequence getSummary()
+    {
+        return summary;
+    }
+
+    /**
+     *  @return estimated GPU memory (bytes) of all live textures at the last sample
+     */
+    public long getTextureBytes()
+    {
+        return textureBytes;
+    }
+
+    /**
+     *  @return number of live textures at the last sample
+     */
+    public int getTextureCount()
+    {
+        return textureCount;
+    }
+
+    /**
+     *  @return number of live BaseActors at the last sample
+     */
+    public int getActorCount()
+    {
+        return actorCount;
+    }
+
+    /**
+     *  @return number of live actors of the given class at the last sample
+     */
+    public int getActorCount(Class<? extends BaseActor> type)
+    {
+        return actorCounts.get(type, 0);
+    }
+
+    /**
+     *  @return number of actors and screens still referenced after their screen was disposed
+     */
+    public int getLeakCount()
+    {
+        return leakedActorCount + leakedScreenCount;
+    }
+
+    /**
+     *  @return most batch flushes (OpenGL draw calls) drawing the game world in one frame, during the last sample interval
+     */
+    public int getPeakRenderCalls()
+    {
+        return peakRenderCalls;
+    }
+
+    /**
+     *  @return most texture switches in the game world's render queue in one frame, during the last sample interval
+     */
+    public int getPeakTextureSwitches()
+    {
+        return peakTextureSwitches;
+    }
+
+    /**
+     *  @return Java heap in use (bytes) at the last sample
+     */
+    public long getHeapUsed()
+    {
+        return heapUsed;
+    }
+
+    /**
+     *  @return most Java heap in use (bytes) at any sample
+     */
+    public long getHeapHighWater()
+    {
+        return heapHighWater;
+    }
+
+    /**
+     *  @return true if a budget was exceeded at the last sample
+     */
+    public boolean isOverBudget()
+    {
+        return overBudget;
+    }
+
+    /**
+     *  @return number of consecutive samples (including the last) that exceeded a budget
+     */
+    public int getOverBudgetSamples()
+    {
+        return overBudgetSamples;
+    }
+}
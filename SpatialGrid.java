@@ -0,0 +1,283 @@
+import com.badlogic.gdx.math.Intersector;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Broad phase for collision queries: a uniform grid of cells,
+ * each holding the actors whose bounding rectangle overlaps it.
+ * Actors that never move (walls) are added once with {@link #addStatic} and stay until {@link #removeStatic};
+ * moving actors are re-inserted every frame with {@link #clear} and {@link #insert}.
+ * Then answer any number of ray casts against it.
+ * Clearing only visits the cells filled since the last clear, so its cost follows the number of moving actors,
+ * not the size of the world.
+ */
+public class SpatialGrid
+{
+    private float cellSize;
+    private int cols;
+    private int rows;
+
+    // in each cell, static actors come first, followed by those inserted since the last clear
+    private Array<BaseActor>[] cells;
+    private int[] staticCount;
+    // indexes of the cells holding inserted actors
+    private IntArray filled;
+
+    // actors already tested during the current ray cast
+    private Array<BaseActor> tested;
+
+    // reused to avoid allocation during ray casts
+    private Vector2 segmentStart;
+    private Vector2 segmentEnd;
+
+    /**
+     *  Creates an empty grid covering the world.
+     *  @param worldWidth width of the world (pixels)
+     *  @param worldHeight height of the world (pixels)
+     *  @param cellSize width and height of each grid cell (pixels)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SpatialGrid(float worldWidth, float worldHeight, float cellSize)
+    {
+        this.cellSize = cellSize;
+        cols = MathUtils.ceil(worldWidth / cellSize);
+        rows = MathUtils.ceil(worldHeight / cellSize);
+
+        cells = new Array[cols * rows];
+        for (int i = 0; i < cells.length; i++)
+            cells[i] = new Array<BaseActor>(false, 4);
+        staticCount = new int[cols * rows];
+
+        filled = new IntArray(false, 64);
+        tested = new Array<BaseActor>(false, 16);
+        segmentStart = new Vector2();
+        segmentEnd = new Vector2();
+    }
+
+    /**
+     *  Removes all inserted actors from the grid (keeps static actors and allocated storage).
+     */
+    public void clear()
+    {
+        for (int i = 0; i < filled.size; i++)
+        {
+            int index = filled.get(i);
+            cells[index].truncate( staticCount[index] );
+        }
+        filled.clear();
+    }
+
+    /**
+     *  Adds an actor that stays in the grid through every {@link #clear}.
+     *  @param actor actor to add; must have a collision polygon, and must not move while in the grid
+     */
+    public void addStatic(BaseActor actor)
+    {
+        Rectangle box = actor.getBoundary().getBoundingRectangle();
+        int minCol = getCol(box.x);
+        int maxCol = getCol(box.x + box.width);
+        int minRow = getRow(box.y);
+        int maxRow = getRow(box.y + box.height);
+
+        for (int r = minRow; r <= maxRow; r++)
+        {
+            for (int c = minCol; c <= maxCol; c++)
+            {
+                // kept ahead of inserted actors (an unordered insert moves the displaced one to the end)
+                int index = r * cols + c;
+                cells[index].insert( staticCount[index], actor );
+                staticCount[index]++;
+            }
+        }
+    }
+
+    /**
+     *  Removes an actor added with {@link #addStatic}.
+     *  @param actor actor to remove
+     */
+    public void removeStatic(BaseActor actor)
+    {
+        Rectangle box = actor.getBoundary().getBoundingRectangle();
+        int minCol = getCol(box.x);
+        int maxCol = getCol(box.x + box.width);
+        int minRow = getRow(box.y);
+        int maxRow = getRow(box.y + box.height);
+
+        for (int r = minRow; r <= maxRow; r++)
+        {
+            for (int c = minCol; c <= maxCol; c++)
+            {
+                int index = r * cols + c;
+                Array<BaseActor> cell = cells[index];
+                int i = cell.indexOf(actor, true);
+                if (i < 0 || i >= staticCount[index])
+                    continue;
+
+                // move it to the end of the static actors, then let the last actor fill its place
+                int last = --staticCount[index];
+                cell.swap(i, last);
+                cell.removeIndex(last);
+            }
+        }
+    }
+
+    /**
+     *  Adds an actor to every cell overlapped by its collision polygon's bounding rectangle.
+     *  @param actor actor to add; must have a collision polygon
+     */
+    public void insert(BaseActor actor)
+    {
+        Rectangle box = actor.getBoundary().getBoundingRectangle();
+        int minCol = getCol(box.x);
+        int maxCol = getCol(box.x + box.width);
+        int minRow = getRow(box.y);
+        int maxRow = getRow(box.y + box.height);
+
+        for (int r = minRow; r <= maxRow; r++)
+        {
+            for (int c = minCol; c <= maxCol; c++)
+            {
+                int index = r * cols + c;
+                Array<BaseActor> cell = cells[index];
+                if (cell.size == staticCount[index])
+                    filled.add(index);
+                cell.add(actor);
+            }
+        }
+    }
+
+    /**
+     *  Finds the first actor crossed by a line segment.
+     *  Candidates come from the cells the segment passes through;
+     *  each is checked against its bounding rectangle, then its collision polygon.
+     *  A segment starting inside a polygon hits it at the start.
+     *  @param x1 x-coordinate of segment start
+     *  @param y1 y-coordinate of segment start
+     *  @param x2 x-coordinate of segment end
+     *  @param y2 y-coordinate of segment end
+     *  @return actor whose bounding rectangle is entered earliest along the segment, null if none
+     */
+    public BaseActor raycast(float x1, float y1, float x2, float y2)
+    {
+        tested.clear();
+        segmentStart.set(x1, y1);
+        segmentEnd.set(x2, y2);
+
+        BaseActor closest = null;
+        float closestT = Float.MAX_VALUE;
+
+        // walk the cells along the segment (Amanatides-Woo grid traversal)
+        int col = getCol(x1);
+        int row = getRow(y1);
+        int endCol = getCol(x2);
+        int endRow = getRow(y2);
+
+        float dx = x2 - x1;
+        float dy = y2 - y1;
+        int stepCol = (dx > 0) ? 1 : -1;
+        int stepRow = (dy > 0) ? 1 : -1;
+
+        float tDeltaX = (dx != 0) ? Math.abs(cellSize / dx) : Float.MAX_VALUE;
+        float tDeltaY = (dy != 0) ? Math.abs(cellSize / dy) : Float.MAX_VALUE;
+        float nextBoundaryX = (col + (stepCol > 0 ? 1 : 0)) * cellSize;
+        float nextBoundaryY = (row + (stepRow > 0 ? 1 : 0)) * cellSize;
+        float tMaxX = (dx != 0) ? (nextBoundaryX - x1) / dx : Float.MAX_VALUE;
+        float tMaxY = (dy != 0) ? (nextBoundaryY - y1) / dy : Float.MAX_VALUE;
+
+        while (true)
+        {
+            Array<BaseActor> cell = cells[row * cols + col];
+            for (int i = 0; i < cell.size; i++)
+            {
+                BaseActor actor = cell.get(i);
+                if ( tested.contains(actor, true) )
+                    continue;
+                tested.add(actor);
+
+                Polygon poly = actor.getBoundary();
+                float t = entryTime( poly.getBoundingRectangle(), x1, y1, dx, dy );
+                if (t >= closestT)
+                    continue;
+
+                // the segment test only finds edge crossings, which a segment inside the polygon has none of
+                if ( poly.contains(x1, y1) )
+                {
+                    closest = actor;
+                    closestT = 0;
+                }
+                else if ( Intersector.intersectSegmentPolygon(segmentStart, segmentEnd, poly) )
+                {
+                    closest = actor;
+                    closestT = t;
+                }
+            }
+
+            // nothing later along the segment can be entered before the current hit
+            float cellExitT = Math.min(tMaxX, tMaxY);
+            if ( closest != null && closestT <= cellExitT )
+                break;
+
+            if ( (col == endCol && row == endRow) || cellExitT > 1 )
+                break;
+
+            if (tMaxX < tMaxY)
+            {
+                col += stepCol;
+                tMaxX += tDeltaX;
+            }
+            else
+            {
+                row += stepRow;
+                tMaxY += tDeltaY;
+            }
+
+            if (col < 0 || col >= cols || row < 0 || row >= rows)
+                break;
+        }
+
+        return closest;
+    }
+
+    // fraction of the segment at which it enters the rectangle (slab method); 0 if it starts inside
+    private float entryTime(Rectangle box, float x, float y, float dx, float dy)
+    {
+        float tMin = 0;
+        float tMax = 1;
+
+        if (dx != 0)
+        {
+            float t1 = (box.x - x) / dx;
+            float t2 = (box.x + box.width - x) / dx;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+        else if (x < box.x || x > box.x + box.width)
+            return Float.MAX_VALUE;
+
+        if (dy != 0)
+        {
+            float t1 = (box.y - y) / dy;
+            float t2 = (box.y + box.height - y) / dy;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+        else if (y < box.y || y > box.y + box.height)
+            return Float.MAX_VALUE;
+
+        return (tMin <= tMax) ? tMin : Float.MAX_VALUE;
+    }
+
+    private int getCol(float x)
+    {
+        return MathUtils.clamp( (int)(x / cellSize), 0, cols - 1 );
+    }
+
+    private int getRow(float y)
+    {
+        return MathUtils.clamp( (int)(y / cellSize), 0, rows - 1 );
+    }
+}
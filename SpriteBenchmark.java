@@ -0,0 +1,165 @@
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.utils.viewport.ScalingViewport;
+import com.badlogic.gdx.utils.Scaling;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Compares act/draw cost of 10,000 childless sprites drawn two ways:
+ * the original Group-based BaseActor (transform push/pop and child pass for every actor, plain Stage)
+ * and the current leaf BaseActor drawn from the SpriteStage render list.
+ * Runs without a window (see {@link HeadlessBackend}), so timings are CPU-side only;
+ * "transform changes" counts calls that would each flush a SpriteBatch.
+ * Memory is measured as bytes allocated by the benchmark thread while creating the actors,
+ * which does not depend on when garbage is collected (the first round also includes one-time setup).
+ * Per-frame allocation is not reported: the stand-in batch allocates on every draw call.
+ * Resource tracking is turned off for both variants, so only the actor structure and stage differ.
+ */
+public class SpriteBenchmark
+{
+    /**
+     * Reproduces the original BaseActor behavior: Group transform on, child pass on every draw.
+     */
+    public static class GroupSprite extends Group
+    {
+        public Animator animator;
+        public Physics physics;
+        private Polygon boundary;
+
+        public GroupSprite(float x, float y, Stage s)
+        {
+            super();
+            setPosition(x,y);
+            s.addActor(this);
+        }
+
+        public void setAnimator(Animator anim)
+        {
+            animator = anim;
+            TextureRegion tr = animator.getKeyFrame();
+            setSize( tr.getRegionWidth(), tr.getRegionHeight() );
+            setOrigin( getWidth()/2, getHeight()/2 );
+            boundary = new Polygon( new float[] {0,0, getWidth(),0, getWidth(),getHeight(), 0,getHeight()} );
+        }
+
+        public void act(float dt)
+        {
+            super.act(dt);
+            if (physics != null)
+                physics.update(dt);
+            if (boundary != null)
+                boundary.setPosition( getX(), getY() );
+            if (animator != null)
+                animator.update(dt);
+        }
+
+        public void draw(Batch batch, float parentAlpha)
+        {
+            Color c = getColor();
+            batch.setColor(c.r, c.g, c.b, c.a);
+            batch.draw( animator.getKeyFrame(),
+                getX(), getY(), getOriginX(), getOriginY(),
+                getWidth(), getHeight(), getScaleX(), getScaleY(), getRotation() );
+            super.draw(batch, parentAlpha);
+        }
+    }
+
+    public static final int ACTOR_COUNT = 10000;
+    public static final int WARMUP_FRAMES = 200;
+    public static final int MEASURED_FRAMES = 500;
+
+    public static void main(String[] args)
+    {
+        HeadlessBackend.install(800, 600);
+        // GroupSprite is not a BaseActor, so it could not be tracked the same way
+        BaseGame.resources.enabled = false;
+
+        // texture-less region: the stand-in batch never reads pixels
+        TextureRegion region = new TextureRegion()
+        {
+            public int getRegionWidth()  { return 32; }
+
+            public int getRegionHeight() { return 32; }
+        };
+
+        for (int round = 0; round < 2; round++)
+        {
+            run("Group sprites + Stage      ", false, region);
+            run("BaseActor + SpriteStage    ", true, region);
+        }
+    }
+
+    private static void run(String label, boolean flattened, TextureRegion region)
+    {
+        HeadlessBackend.CallCounter batchCalls = new HeadlessBackend.CallCounter();
+        ScalingViewport viewport = new ScalingViewport(Scaling.stretch, 800, 600, new OrthographicCamera());
+        Batch batch = HeadlessBackend.newBatch(batchCalls);
+
+        long allocatedBefore = getAllocatedBytes();
+        Stage stage = flattened ? new SpriteStage(viewport, batch) : new Stage(viewport, batch);
+        MathUtils.random.setSeed(1);
+        for (int i = 0; i < ACTOR_COUNT; i++)
+        {
+            Animator anim = new Animator();
+            anim.animation = new Animation<TextureRegion>(1, region);
+
+            float x = MathUtils.random(0, 768);
+            float y = MathUtils.random(0, 568);
+            if (flattened)
+            {
+                BaseActor actor = new BaseActor(x, y, stage);
+                actor.setAnimator(anim);
+            }
+            else
+            {
+                GroupSprite actor = new GroupSprite(x, y, stage);
+                actor.setAnimator(anim);
+            }
+        }
+        long bytesPerActor = (getAllocatedBytes() - allocatedBefore) / ACTOR_COUNT;
+
+        for (int i = 0; i < WARMUP_FRAMES; i++)
+        {
+            stage.act(1 / 60f);
+            stage.draw();
+        }
+
+        batchCalls.reset();
+        long actTime = 0;
+        long drawTime = 0;
+        for (int i = 0; i < MEASURED_FRAMES; i++)
+        {
+            long start = System.nanoTime();
+            stage.act(1 / 60f);
+            long middle = System.nanoTime();
+            stage.draw();
+            long end = System.nanoTime();
+            actTime += middle - start;
+            drawTime += end - middle;
+        }
+
+        System.out.println( label
+            + " | act " + (actTime / MEASURED_FRAMES / 1000) + " us/frame"
+            + " | draw " + (drawTime / MEASURED_FRAMES / 1000) + " us/frame"
+            + " | transform changes " + (batchCalls.getCount("setTransformMatrix") / MEASURED_FRAMES) + "/frame"
+            + " | " + bytesPerActor + " bytes allocated/actor" );
+    }
+
+    // total bytes allocated so far by this thread; -1 if the JVM cannot measure it
+    private static long getAllocatedBytes()
+    {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if ( !(threads instanceof com.sun.management.ThreadMXBean) )
+            return -1;
+        return ((com.sun.management.ThreadMXBean)threads).getThreadAllocatedBytes( Thread.currentThread().getId() );
+    }
+}
@@ -0,0 +1,261 @@
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.Scaling;
+import com.badlogic.gdx.utils.SnapshotArray;
+import com.badlogic.gdx.utils.viewport.ScalingViewport;
+import com.badlogic.gdx.utils.viewport.Viewport;
+
+import java.util.Arrays;
+
+/**
+ * Stage that draws its top-level actors from a single render queue
+ * instead of walking the scene graph through the root Group.
+ * The queue is sorted by layer, then by texture, so that a SpriteBatch only flushes
+ * when the layer order forces a texture switch; actors are drawn in insertion order
+ * only when they share a layer and texture (use layers where overlap order matters).
+ * Actors entirely outside the camera's view are skipped.
+ * BaseActors use {@link BaseActor#layer}; other actors use {@link #setLayer} (default 0).
+ */
+public class SpriteStage extends Stage
+{
+    // layer for full-screen backgrounds, drawn before all game objects
+    public static final int BACKGROUND_LAYER = -100;
+    // layer for effects drawn above all game objects (bullets, explosions)
+    public static final int EFFECT_LAYER = 100;
+
+    // sort key layout (high to low bits): sign (always 0), layer (23), texture id (20), insertion index (20);
+    //  the sign bit stays clear so that signed comparison of keys keeps layer order
+    private static final int LAYER_OFFSET = 1 << 22;
+    private static final int MAX_TEXTURES = 1 << 20;
+    private static final int MAX_ACTORS = 1 << 20;
+
+    private Array<Actor> renderList;
+    private long[] sortKeys;
+
+    // layers of actors that are not BaseActors (kept until the stage is disposed)
+    private ObjectIntMap<Actor> actorLayers;
+
+    // small sequential id for each texture seen; keeps sort keys compact
+    private ObjectIntMap<Texture> textureIds;
+
+    // statistics for the last call to draw
+    private int drawnCount;
+    private int culledCount;
+    private int textureSwitches;
+    private int renderCalls;
+
+    // true when the batch was created by this stage (and must be disposed by it)
+    private boolean ownsBatch;
+
+    public SpriteStage()
+    {
+        this( new ScalingViewport(Scaling.stretch, Gdx.graphics.getWidth(), Gdx.graphics.getHeight(), new OrthographicCamera()) );
+    }
+
+    /**
+     *  Creates a stage with its own sprite batch (disposed with the stage).
+     *  @param viewport viewport used to draw this stage
+     */
+    public SpriteStage(Viewport viewport)
+    {
+        this( viewport, new SpriteBatch() );
+        ownsBatch = true;
+    }
+
+    /**
+     *  @param viewport viewport used to draw this stage
+     *  @param batch batch used to draw this stage; not disposed by this stage
+     */
+    public SpriteStage(Viewport viewport, Batch batch)
+    {
+        super(viewport, batch);
+
+        renderList = new Array<Actor>(false, 256, Actor.class);
+        sortKeys = new long[256];
+        actorLayers = new ObjectIntMap<Actor>();
+        textureIds = new ObjectIntMap<Texture>();
+    }
+
+    /**
+     *  Sets the drawing layer of an actor that is not a BaseActor.
+     *  @param actor actor to place
+     *  @param layer higher layers are drawn on top (from -4194304 to 4194303)
+     */
+    public void setLayer(Actor actor, int layer)
+    {
+        actorLayers.put(actor, layer);
+    }
+
+    private int getLayer(Actor actor)
+    {
+        if (actor instanceof BaseActor)
+            return ((BaseActor)actor).layer;
+        return actorLayers.get(actor, 0);
+    }
+
+    // layer shifted to be non-negative and limited to the bits available in a sort key
+    private long getLayerKey(Actor actor)
+    {
+        int layer = getLayer(actor);
+        return Math.max( 0, Math.min(layer + LAYER_OFFSET, 2 * LAYER_OFFSET - 1) );
+    }
+
+    // id 0 is reserved for actors without a known texture
+    private int getTextureId(Actor actor)
+    {
+        if ( !(actor instanceof BaseActor) )
+            return 0;
+
+        Animator animator = ((BaseActor)actor).animator;
+        if (animator == null || animator.animation == null)
+            return 0;
+
+        Texture texture = animator.getKeyFrame().getTexture();
+        if (texture == null)
+            return 0;
+
+        int id = textureIds.get(texture, 0);
+        if (id == 0)
+        {
+            // ids only need to be distinct; start over rather than overflow the key
+            if (textureIds.size + 1 >= MAX_TEXTURES)
+                textureIds.clear();
+            id = textureIds.size + 1;
+            textureIds.put(texture, id);
+        }
+        return id;
+    }
+
+    public void draw()
+    {
+        Camera camera = getViewport().getCamera();
+        camera.update();
+
+        Group root = getRoot();
+        if ( !root.isVisible() )
+            return;
+
+        float zoom = 1;
+        if (camera instanceof OrthographicCamera)
+            zoom = ((OrthographicCamera)camera).zoom;
+        float viewLeft = camera.position.x - camera.viewportWidth * zoom / 2;
+        float viewRight = camera.position.x + camera.viewportWidth * zoom / 2;
+        float viewBottom = camera.position.y - camera.viewportHeight * zoom / 2;
+        float viewTop = camera.position.y + camera.viewportHeight * zoom / 2;
+
+        // gather visible actors; array is reused between frames
+        renderList.clear();
+        culledCount = 0;
+        SnapshotArray<Actor> children = root.getChildren();
+        Actor[] actors = children.begin();
+        for (int i = 0, n = children.size; i < n && renderList.size < MAX_ACTORS; i++)
+        {
+            Actor actor = actors[i];
+            if ( !actor.isVisible() )
+                continue;
+
+            // only BaseActors are known to draw within their bounds; the largest side covers any rotation
+            if (actor instanceof BaseActor)
+            {
+                float extent = Math.max( actor.getWidth() * Math.abs(actor.getScaleX()),
+                        actor.getHeight() * Math.abs(actor.getScaleY()) );
+                float centerX = actor.getX() + actor.getOriginX();
+                float centerY = actor.getY() + actor.getOriginY();
+                if ( centerX + extent < viewLeft || centerX - extent > viewRight
+                || centerY + extent < viewBottom || centerY - extent > viewTop )
+                {
+                    culledCount++;
+                    continue;
+                }
+            }
+
+            renderList.add(actor);
+        }
+        children.end();
+
+        // one primitive key per actor: sorting longs needs no comparator and allocates nothing
+        int count = renderList.size;
+        if (sortKeys.length < count)
+            sortKeys = new long[ Math.max(count, sortKeys.length * 2) ];
+        for (int i = 0; i < count; i++)
+        {
+            Actor actor = renderList.get(i);
+            long layer = getLayerKey(actor);
+            long texture = getTextureId(actor);
+            sortKeys[i] = (layer << 40) | (texture << 20) | i;
+        }
+        Arrays.sort(sortKeys, 0, count);
+        drawnCount = count;
+
+        Batch batch = getBatch();
+        batch.setProjectionMatrix(camera.combined);
+        batch.begin();
+        float parentAlpha = root.getColor().a;
+        textureSwitches = 0;
+        long lastTexture = -1;
+        for (int i = 0; i < count; i++)
+        {
+            long key = sortKeys[i];
+            long texture = (key >>> 20) & (MAX_TEXTURES - 1);
+            if (texture != lastTexture)
+            {
+                textureSwitches++;
+                lastTexture = texture;
+            }
+            renderList.get( (int)(key & (MAX_ACTORS - 1)) ).draw(batch, parentAlpha);
+        }
+        batch.end();
+
+        if (batch instanceof SpriteBatch)
+            renderCalls = ((SpriteBatch)batch).renderCalls;
+    }
+
+    /**
+     *  @return number of actors drawn during the last frame
+     */
+    public int getDrawnCount()
+    {
+        return drawnCount;
+    }
+
+    /**
+     *  @return number of actors skipped during the last frame because they were outside the view
+     */
+    public int getCulledCount()
+    {
+        return culledCount;
+    }
+
+    /**
+     *  @return number of texture changes in the sorted queue during the last frame
+     *  (actors without a known texture count as one group)
+     */
+    public int getTextureSwitches()
+    {
+        return textureSwitches;
+    }
+
+    /**
+     *  @return number of batch flushes (OpenGL draw calls) during the last frame; 0 if the batch is not a SpriteBatch
+     */
+    public int getRenderCalls()
+    {
+        return renderCalls;
+    }
+
+    public void dispose()
+    {
+        super.dispose();
+        if (ownsBatch)
+            getBatch().dispose();
+    }
+}
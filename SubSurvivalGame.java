@@ -3,5 +3,6 @@ public class SubSurvivalGame extends BaseGame
     public void create() 
     {     
         super.create();
+        setActiveScreen(MenuScreen.class);
     }
 }
\ No newline at end of file
@@ -9,12 +9,14 @@ import com.badlogic.gdx.scenes.scene2d.actions.Actions;
  */
 public class Submarine extends BaseActor
 {
+    // movement commands for this sub; null if it is not player-controlled
+    public InputBuffer controls;
 
     public Submarine(float x, float y, Stage stage)
     {
         super(x,y,stage);
 
-        setAnimator( new Animator("INSERT NAME HERE") );
+        setAnimator( new Animator("assets/images/sub.png") );
         setBoundaryPolygon(10);
         
         physics = new Physics(2000, 800, 8000);
@@ -23,6 +25,22 @@ public class Submarine extends BaseActor
 
     public void act(float dt)
     {
+        // commands are applied before physics, so a key pressed before this tick moves the sub during it
+        if (controls != null)
+        {
+            if ( controls.isHeld(InputBuffer.Command.MOVE_UP) )
+                physics.accelerateAtAngle(90);
+            if ( controls.isHeld(InputBuffer.Command.MOVE_DOWN) )
+                physics.accelerateAtAngle(270);
+            if ( controls.isHeld(InputBuffer.Command.MOVE_LEFT) )
+                physics.accelerateAtAngle(180);
+            if ( controls.isHeld(InputBuffer.Command.MOVE_RIGHT) )
+                physics.accelerateAtAngle(0);
+
+            if ( physics.isMoving() )
+                setRotation( physics.getMotionAngle() );
+        }
+
         super.act(dt);
         
        